@@ -0,0 +1,28 @@
+package com.czh.example.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 服务方法注解（在服务接口方法上使用），覆盖全局配置
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 9:30
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RpcMethod {
+
+    /**
+     * 调用超时时间（单位毫秒），随请求发送给服务提供者作为截止时间，不大于 0 时使用全局配置
+     */
+    long timeout() default 0;
+
+    /**
+     * 是否单向调用：只发送请求，不等待响应，服务提供者也不构造和发送响应；只能用于返回 void 的方法
+     */
+    boolean oneWay() default false;
+}
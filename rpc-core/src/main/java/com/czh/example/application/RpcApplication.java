@@ -3,10 +3,14 @@ package com.czh.example.application;
 import com.czh.example.config.RegistryConfig;
 import com.czh.example.config.RpcConfig;
 import com.czh.example.factory.RegistryFactory;
+import com.czh.example.limiter.RateLimiterRegistry;
+import com.czh.example.protocol.EncodeBufferPool;
 import com.czh.example.registry.Registry;
 import com.czh.example.utils.ConfigUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import static com.czh.example.constant.RpcConstant.DEFAULT_CONFIG_PREFIX;
 import static com.czh.example.constant.RpcConstant.PROPERTIES_CONFIG_SUFFIX;
 
@@ -30,12 +34,21 @@ public class RpcApplication {
      */
     private static volatile RpcConfig rpcConfig;
 
+    /**
+     * 初始化锁，使用 ReentrantLock 而不是 synchronized：
+     * 初始化期间会访问注册中心，synchronized 会让等待的虚拟线程钉住载体线程
+     */
+    private static final ReentrantLock INIT_LOCK = new ReentrantLock();
+
     /**
      * 框架初始化，支持自定义配置
      */
     public static void init(RpcConfig newRpcConfig) {
         rpcConfig = newRpcConfig;
         log.info("rpc init, config = {}", rpcConfig.toString());
+        EncodeBufferPool.setMaxPooledPerClass(rpcConfig.getEncodeBufferPoolSize());
+        //按配置登记限流，替换上次初始化时按配置登记的限流
+        RateLimiterRegistry.setLimits(rpcConfig.getProviderConfig().getRateLimits());
         //注册中心初始化
         RegistryConfig registryConfig = rpcConfig.getRegistryConfig();
         Registry registry = RegistryFactory.getInstance(registryConfig.getRegistry());
@@ -62,10 +75,13 @@ public class RpcApplication {
      */
     public static RpcConfig getRpcConfig() {
         if (rpcConfig == null) {
-            synchronized (RpcApplication.class) {
+            INIT_LOCK.lock();
+            try {
                 if (rpcConfig == null) {
                     init();
                 }
+            } finally {
+                INIT_LOCK.unlock();
             }
         }
         return rpcConfig;
@@ -0,0 +1,34 @@
+package com.czh.example.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 压缩器接口
+ * 以流的方式压缩和解压，解码时直接包装消息体切片的输入流，不复制消息体
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:30
+ */
+public interface Compressor {
+
+    /**
+     * 包装输出流，写入的数据压缩后写入 outputStream，关闭时写出剩余数据
+     *
+     * @param outputStream
+     * @return
+     * @throws IOException
+     */
+    OutputStream compress(OutputStream outputStream) throws IOException;
+
+    /**
+     * 包装输入流，读取时解压
+     *
+     * @param inputStream
+     * @return
+     * @throws IOException
+     */
+    InputStream decompress(InputStream inputStream) throws IOException;
+}
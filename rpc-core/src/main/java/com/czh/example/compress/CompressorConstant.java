@@ -0,0 +1,16 @@
+package com.czh.example.compress;
+
+/**
+ * 压缩器名称常量
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:32
+ */
+public interface CompressorConstant {
+    String NONE = "none";
+    String LZ4 = "lz4";
+    String SNAPPY = "snappy";
+    String ZSTD = "zstd";
+    String DEFLATE = "deflate";
+}
@@ -0,0 +1,29 @@
+package com.czh.example.compress.impl;
+
+import com.czh.example.compress.Compressor;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate 压缩器（JDK 自带，无需额外依赖）
+ * 使用流自带的 Deflater/Inflater，关闭流时释放本地内存
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:46
+ */
+public class DeflateCompressor implements Compressor {
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) {
+        return new DeflaterOutputStream(outputStream);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) {
+        return new InflaterInputStream(inputStream);
+    }
+}
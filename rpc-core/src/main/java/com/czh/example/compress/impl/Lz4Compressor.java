@@ -0,0 +1,29 @@
+package com.czh.example.compress.impl;
+
+import com.czh.example.compress.Compressor;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * LZ4 压缩器（LZ4 Frame 格式）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:40
+ */
+public class Lz4Compressor implements Compressor {
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) throws IOException {
+        return new LZ4FrameOutputStream(outputStream);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) throws IOException {
+        return new LZ4FrameInputStream(inputStream);
+    }
+}
@@ -0,0 +1,29 @@
+package com.czh.example.compress.impl;
+
+import com.czh.example.compress.Compressor;
+import org.xerial.snappy.SnappyFramedInputStream;
+import org.xerial.snappy.SnappyFramedOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Snappy 压缩器（Snappy Framing 格式）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:42
+ */
+public class SnappyCompressor implements Compressor {
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) throws IOException {
+        return new SnappyFramedOutputStream(outputStream);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) throws IOException {
+        return new SnappyFramedInputStream(inputStream);
+    }
+}
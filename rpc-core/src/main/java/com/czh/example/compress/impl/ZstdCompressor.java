@@ -0,0 +1,29 @@
+package com.czh.example.compress.impl;
+
+import com.czh.example.compress.Compressor;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Zstandard 压缩器
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:44
+ */
+public class ZstdCompressor implements Compressor {
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) throws IOException {
+        return new ZstdOutputStream(outputStream);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) throws IOException {
+        return new ZstdInputStream(inputStream);
+    }
+}
@@ -0,0 +1,67 @@
+package com.czh.example.config;
+
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * RPC 框架服务消费者配置
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/12 10:20
+ */
+@Data
+public class ConsumerConfig {
+
+    /**
+     * 每个服务提供者地址（host:port）保持的最大TCP连接数，连接上多路复用多个请求
+     */
+    private Integer maxConnectionsPerAddress = 2;
+
+    /**
+     * 建立TCP连接超时时间（单位毫秒）
+     */
+    private Integer connectTimeout = 3000;
+
+    /**
+     * 请求超时时间（单位毫秒），超时未收到响应则调用失败
+     */
+    private Long requestTimeout = 5000L;
+
+    /**
+     * 是否使用方法ID：连接建立后与服务提供者握手获取方法ID，之后的请求只携带方法ID和参数
+     */
+    private boolean methodIdEnabled = true;
+
+    /**
+     * 服务端流的接收窗口：服务提供者最多可以提前发送的元素个数，每消费一半窗口补充一次额度
+     */
+    private int streamWindow = 256;
+
+    /**
+     * 单向调用的方法（接口全限定名#方法名），与 @RpcMethod(oneWay = true) 效果相同
+     */
+    private Set<String> oneWayMethods = new HashSet<>();
+
+    /**
+     * 批量发送请求的服务（接口全限定名）：短时间内发往同一服务提供者的请求合并为一个消息发送
+     */
+    private Set<String> batchServices = new HashSet<>();
+
+    /**
+     * 每批最多包含的请求数，达到后立即发送
+     */
+    private int batchMaxSize = 16;
+
+    /**
+     * 批量等待时间（单位毫秒），0 表示只合并同一轮事件循环内的请求
+     */
+    private long batchDelay = 0;
+
+    /**
+     * 服务提供者回复被限流后避开该节点的时间（单位毫秒），期间优先选择其他节点，0 表示不避开
+     */
+    private long rateLimitBackoff = 1000;
+}
@@ -0,0 +1,91 @@
+package com.czh.example.config;
+
+import com.czh.example.dispatcher.DispatcherConstant;
+import com.czh.example.invoker.InvokerConstant;
+import com.czh.example.registry.ServiceScopeConstant;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RPC 框架服务提供者配置
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:35
+ */
+@Data
+public class ProviderConfig {
+
+    /**
+     * 请求分发器 eventLoop/fixed/perService/virtual
+     */
+    private String dispatcher = DispatcherConstant.FIXED;
+
+    /**
+     * 共享业务线程池大小（fixed）
+     */
+    private Integer threads = 200;
+
+    /**
+     * 每个服务的线程池大小（perService）
+     */
+    private Integer serviceThreads = 20;
+
+    /**
+     * 服务实例作用域 singleton/prototype
+     */
+    private String serviceScope = ServiceScopeConstant.SINGLETON;
+
+    /**
+     * 方法调用器 reflect/methodHandle/lambda
+     */
+    private String invoker = InvokerConstant.LAMBDA;
+
+    /**
+     * 客户端流的接收窗口：服务消费者最多可以提前发送的元素个数，每消费一半窗口补充一次额度
+     */
+    private int streamWindow = 256;
+
+    /**
+     * 收到服务消费者的取消时是否中断正在执行请求的线程（排队中的请求总是跳过）
+     */
+    private boolean interruptOnCancel = true;
+
+    /**
+     * 每个服务排队等待执行的最大请求数，超过时直接回复服务繁忙，0 表示不限制
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 排队时间预算（单位毫秒），请求开始执行时已排队超过该时间则不执行，回复服务繁忙，0 表示不限制
+     */
+    private long queueTimeout = 0;
+
+    /**
+     * 是否开启自适应并发限制：按请求耗时动态调整每个服务的并发上限，超过上限的请求直接回复服务繁忙
+     */
+    private boolean adaptiveConcurrency = false;
+
+    /**
+     * 每个服务的初始并发上限
+     */
+    private int initialConcurrency = 20;
+
+    /**
+     * 每个服务的最小并发上限
+     */
+    private int minConcurrency = 4;
+
+    /**
+     * 每个服务的最大并发上限
+     */
+    private int maxConcurrency = 1000;
+
+    /**
+     * 限流（每秒请求数）：接口全限定名 -> 服务的限流，接口全限定名#方法名 -> 方法的限流
+     * 超过速率的请求直接回复 RATE_LIMITED，也可以在 @RpcService 上配置
+     */
+    private Map<String, Integer> rateLimits = new HashMap<>();
+}
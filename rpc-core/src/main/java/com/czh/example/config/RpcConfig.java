@@ -1,9 +1,11 @@
 package com.czh.example.config;
 
 
+import com.czh.example.compress.CompressorConstant;
 import com.czh.example.fault.retry.RetryStrategyConstant;
 import com.czh.example.fault.tolerant.TolerantStrategyConstant;
 import com.czh.example.loadbalancer.LoadBalancerConstant;
+import com.czh.example.proxy.ProxyConstant;
 import com.czh.example.serializer.SerializerConstants;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -66,4 +68,80 @@ public class RpcConfig {
      * 容错策略
      */
     private String tolerantStrategy = TolerantStrategyConstant.FAIL_FAST;
+
+    /**
+     * 服务消费者配置
+     */
+    private ConsumerConfig consumerConfig = new ConsumerConfig();
+
+    /**
+     * 服务提供者配置
+     */
+    private ProviderConfig providerConfig = new ProviderConfig();
+
+    /**
+     * 虚拟线程模式（JDK 21+）：服务提供者在虚拟线程上执行请求，服务消费者的阻塞调用只挂起虚拟线程
+     */
+    private boolean virtualThread = false;
+
+    /**
+     * 服务代理实现 jdk/byteBuddy
+     */
+    private String proxy = ProxyConstant.JDK;
+
+    /**
+     * 编码缓冲区池每个容量等级缓存的缓冲区数量，根据 EncodeBufferPool 的命中率调整
+     */
+    private int encodeBufferPoolSize = 64;
+
+    /**
+     * 压缩器 none/lz4/snappy/zstd/deflate，握手确认对端支持后才压缩
+     */
+    private String compressor = CompressorConstant.NONE;
+
+    /**
+     * 压缩阈值（单位字节），消息体小于该值时不压缩
+     */
+    private int compressThreshold = 2048;
+
+    /**
+     * 分片大小（单位字节），超过该大小的请求和响应拆分为多个分片发送，与同一连接上的其他消息交错，0 表示不分片
+     */
+    private int fragmentSize = 256 * 1024;
+
+    /**
+     * 单个消息帧的最大长度（单位字节），接收到消息头时检查，超过则关闭连接
+     */
+    private int maxFrameLength = 16 * 1024 * 1024;
+
+    /**
+     * 分片重组后消息的最大长度（单位字节）
+     */
+    private int maxMessageLength = 1024 * 1024 * 1024;
+
+    /**
+     * 心跳周期（单位毫秒），连接在一个周期内没有收到消息时发送心跳，0 表示不发送
+     */
+    private long heartbeatInterval = 5000;
+
+    /**
+     * 连续多少个心跳周期没有收到消息时认为对端失效，关闭连接
+     */
+    private int heartbeatMissLimit = 3;
+
+    /**
+     * 连接空闲时间（单位毫秒），超过该时间没有业务消息时关闭连接，0 表示不关闭
+     */
+    private long idleTimeout = 60000;
+
+    /**
+     * 连接写队列的高水位线（单位字节），未写完的数据超过该值时连接不可写：
+     * 服务消费者的调用线程等待，服务提供者暂停读取请求；0 表示不限制
+     */
+    private long writeHighWatermark = 4 * 1024 * 1024;
+
+    /**
+     * 连接写队列的低水位线（单位字节），未写完的数据回落到该值以下时恢复可写
+     */
+    private long writeLowWatermark = 1024 * 1024;
 }
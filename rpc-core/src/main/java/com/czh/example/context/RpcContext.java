@@ -0,0 +1,49 @@
+package com.czh.example.context;
+
+/**
+ * 调用上下文（线程内）
+ * 服务提供者执行请求时保存请求的截止时间，服务方法中再发起的调用使用剩余时间作为超时时间，
+ * 截止时间沿调用链向下传递
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 9:40
+ */
+public class RpcContext {
+
+    /**
+     * 当前请求的截止时间（System.nanoTime），为空表示没有截止时间
+     * System.nanoTime 可能为 0 或负数，不能用 0 表示没有截止时间
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    public static void setDeadline(Long deadlineNanos) {
+        if (deadlineNanos != null) {
+            DEADLINE.set(deadlineNanos);
+        } else {
+            DEADLINE.remove();
+        }
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * 按超时时间计算截止时间，不大于 0 时没有截止时间，返回空
+     */
+    public static Long deadlineOf(long timeoutMillis) {
+        return timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : null;
+    }
+
+    /**
+     * 当前请求的剩余时间（单位毫秒），没有截止时间返回 -1，已超时返回 0
+     */
+    public static long getRemainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return -1;
+        }
+        return Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+    }
+}
@@ -0,0 +1,20 @@
+package com.czh.example.dispatcher;
+
+/**
+ * 请求分发器（服务提供者）
+ * 解码后的请求交给分发器选择的线程执行业务逻辑，避免慢方法阻塞 Vert.x 事件循环
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:05
+ */
+public interface Dispatcher {
+
+    /**
+     * 分发请求
+     *
+     * @param serviceName 服务名称
+     * @param task        业务处理任务
+     */
+    void dispatch(String serviceName, Runnable task);
+}
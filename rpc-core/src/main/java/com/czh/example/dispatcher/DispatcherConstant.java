@@ -0,0 +1,31 @@
+package com.czh.example.dispatcher;
+
+/**
+ * 请求分发器键名常量
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:08
+ */
+public interface DispatcherConstant {
+
+    /**
+     * 直接在 I/O 事件循环线程执行
+     */
+    String EVENT_LOOP = "eventLoop";
+
+    /**
+     * 所有服务共享固定大小线程池
+     */
+    String FIXED = "fixed";
+
+    /**
+     * 每个服务独立线程池
+     */
+    String PER_SERVICE = "perService";
+
+    /**
+     * 每个请求一个虚拟线程（JDK 21+）
+     */
+    String VIRTUAL = "virtual";
+}
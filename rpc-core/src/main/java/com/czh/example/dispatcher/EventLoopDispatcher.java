@@ -0,0 +1,16 @@
+package com.czh.example.dispatcher;
+
+/**
+ * 事件循环分发器：在 I/O 线程直接执行业务逻辑，只适合非阻塞的快速方法
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:12
+ */
+public class EventLoopDispatcher implements Dispatcher {
+
+    @Override
+    public void dispatch(String serviceName, Runnable task) {
+        task.run();
+    }
+}
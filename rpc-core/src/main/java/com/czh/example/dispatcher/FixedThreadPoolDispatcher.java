@@ -0,0 +1,26 @@
+package com.czh.example.dispatcher;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.czh.example.application.RpcApplication;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 固定线程池分发器：所有服务共享一个业务线程池
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:15
+ */
+public class FixedThreadPoolDispatcher implements Dispatcher {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            RpcApplication.getRpcConfig().getProviderConfig().getThreads(),
+            new NamedThreadFactory("rpc-provider-", true));
+
+    @Override
+    public void dispatch(String serviceName, Runnable task) {
+        executor.execute(task);
+    }
+}
@@ -0,0 +1,32 @@
+package com.czh.example.dispatcher;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.czh.example.application.RpcApplication;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 服务隔离分发器：每个服务使用独立线程池，某个服务的慢方法不会占满其他服务的线程
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:20
+ */
+public class PerServiceThreadPoolDispatcher implements Dispatcher {
+
+    /**
+     * 服务名称 -> 线程池
+     */
+    private final Map<String, ExecutorService> executorMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void dispatch(String serviceName, Runnable task) {
+        executorMap.computeIfAbsent(serviceName, key -> Executors.newFixedThreadPool(
+                RpcApplication.getRpcConfig().getProviderConfig().getServiceThreads(),
+                new NamedThreadFactory("rpc-provider-" + key + "-", true))
+        ).execute(task);
+    }
+}
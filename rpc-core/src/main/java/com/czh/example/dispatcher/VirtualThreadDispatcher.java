@@ -0,0 +1,37 @@
+package com.czh.example.dispatcher;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.czh.example.application.RpcApplication;
+import com.czh.example.utils.VirtualThreadUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程分发器：每个请求一个虚拟线程，阻塞调用只挂起虚拟线程，无需调整线程池大小
+ * JDK 21 以下不支持虚拟线程时退化为固定线程池
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/15 14:35
+ */
+@Slf4j
+public class VirtualThreadDispatcher implements Dispatcher {
+
+    private final ExecutorService executor = createExecutor();
+
+    @Override
+    public void dispatch(String serviceName, Runnable task) {
+        executor.execute(task);
+    }
+
+    private static ExecutorService createExecutor() {
+        if (VirtualThreadUtil.isSupported()) {
+            return VirtualThreadUtil.newVirtualThreadExecutor("rpc-provider-virtual-");
+        }
+        log.warn("当前JDK不支持虚拟线程，使用固定线程池处理请求");
+        return Executors.newFixedThreadPool(RpcApplication.getRpcConfig().getProviderConfig().getThreads(),
+                new NamedThreadFactory("rpc-provider-", true));
+    }
+}
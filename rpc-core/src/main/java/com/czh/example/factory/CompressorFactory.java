@@ -0,0 +1,64 @@
+package com.czh.example.factory;
+
+import com.czh.example.compress.Compressor;
+import com.czh.example.spi.SpiLoader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 压缩器工厂（工厂模式，用于获取压缩器对象）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 9:50
+ */
+@Slf4j
+public class CompressorFactory {
+
+    static {
+        SpiLoader.load(Compressor.class);
+    }
+
+    /**
+     * 压缩器是否可用（部分压缩器依赖本地库，当前平台可能无法加载）
+     */
+    private static final Map<String, Boolean> AVAILABLE_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 获取实例
+     */
+    public static Compressor getInstance(String key) {
+        return SpiLoader.getInstance(Compressor.class, key);
+    }
+
+    /**
+     * 判断压缩器在当前平台是否可用，首次调用时压缩并解压一段数据验证
+     */
+    public static boolean isAvailable(String key) {
+        return AVAILABLE_MAP.computeIfAbsent(key, CompressorFactory::check);
+    }
+
+    private static boolean check(String key) {
+        try {
+            Compressor compressor = getInstance(key);
+            byte[] data = "rpc-compressor-check".getBytes();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (OutputStream outputStream = compressor.compress(byteArrayOutputStream)) {
+                outputStream.write(data);
+            }
+            try (InputStream inputStream = compressor.decompress(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+                return Arrays.equals(data, inputStream.readAllBytes());
+            }
+        } catch (Throwable e) {
+            log.warn("压缩器 {} 不可用", key, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.czh.example.factory;
+
+import com.czh.example.dispatcher.Dispatcher;
+import com.czh.example.spi.SpiLoader;
+
+/**
+ * 请求分发器工厂（工厂模式，用于获取分发器对象）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/14 10:30
+ */
+public class DispatcherFactory {
+
+    static {
+        SpiLoader.load(Dispatcher.class);
+    }
+
+    /**
+     * 获取实例
+     */
+    public static Dispatcher getInstance(String key) {
+        return SpiLoader.getInstance(Dispatcher.class, key);
+    }
+}
@@ -0,0 +1,25 @@
+package com.czh.example.factory;
+
+import com.czh.example.invoker.InvokerGenerator;
+import com.czh.example.spi.SpiLoader;
+
+/**
+ * 方法调用器生成器工厂（工厂模式，用于获取调用器生成器对象）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 11:00
+ */
+public class InvokerGeneratorFactory {
+
+    static {
+        SpiLoader.load(InvokerGenerator.class);
+    }
+
+    /**
+     * 获取实例
+     */
+    public static InvokerGenerator getInstance(String key) {
+        return SpiLoader.getInstance(InvokerGenerator.class, key);
+    }
+}
@@ -0,0 +1,25 @@
+package com.czh.example.factory;
+
+import com.czh.example.proxy.ProxyGenerator;
+import com.czh.example.spi.SpiLoader;
+
+/**
+ * 服务代理生成器工厂（工厂模式，用于获取代理生成器对象）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 10:20
+ */
+public class ProxyGeneratorFactory {
+
+    static {
+        SpiLoader.load(ProxyGenerator.class);
+    }
+
+    /**
+     * 获取实例
+     */
+    public static ProxyGenerator getInstance(String key) {
+        return SpiLoader.getInstance(ProxyGenerator.class, key);
+    }
+}
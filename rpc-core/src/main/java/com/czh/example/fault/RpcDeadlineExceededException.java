@@ -0,0 +1,27 @@
+package com.czh.example.fault;
+
+/**
+ * 调用已超过截止时间，请求不再发送，也不再重试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/28 10:20
+ */
+public class RpcDeadlineExceededException extends RuntimeException {
+
+    public RpcDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * 异常或其原因（ExecutionException、CompletionException 包装）是否为超过截止时间
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RpcDeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package com.czh.example.fault;
+
+import com.czh.example.protocol.ProtocolMessageStatusEnum;
+import lombok.Getter;
+
+/**
+ * 服务提供者拒绝执行请求（服务繁忙等），请求没有执行，可以换一个节点重试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 14:00
+ */
+@Getter
+public class RpcRejectedException extends RuntimeException {
+
+    /**
+     * 响应的状态
+     */
+    private final ProtocolMessageStatusEnum status;
+
+    public RpcRejectedException(ProtocolMessageStatusEnum status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -1,11 +1,14 @@
 package com.czh.example.fault.retry;
 
+import com.czh.example.fault.RpcDeadlineExceededException;
 import com.czh.example.model.RpcResponse;
 import com.github.rholder.retry.*;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 固定时间间隔重试策略
@@ -15,18 +18,29 @@ import java.util.concurrent.TimeUnit;
  */
 @Slf4j
 public class FixedIntervalRetryStrategy implements RetryStrategy{
+
+    /**
+     * 重试间隔（秒）
+     */
+    private static final long WAIT_SECONDS = 3L;
+
+    /**
+     * 最大尝试次数
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
     /**
-     * 重试策略
+     * 重试策略，调用超过截止时间后不再重试
      */
     @Override
     public RpcResponse doRetry(Callable<RpcResponse> callable) throws Exception {
         Retryer<RpcResponse> retryer = RetryerBuilder.<RpcResponse>newBuilder()
 //                重试条件
-                .retryIfExceptionOfType(Exception.class)
+                .retryIfException(e -> e instanceof Exception && !RpcDeadlineExceededException.isCause(e))
 //                重试等待策略
-                .withWaitStrategy(WaitStrategies.fixedWait(3L, TimeUnit.SECONDS))
+                .withWaitStrategy(WaitStrategies.fixedWait(WAIT_SECONDS, TimeUnit.SECONDS))
 //                重试停止策略,重试三次后失败
-                .withStopStrategy(StopStrategies.stopAfterAttempt(3))
+                .withStopStrategy(StopStrategies.stopAfterAttempt(MAX_ATTEMPTS))
 //                重试工作
                 .withRetryListener(new RetryListener() {
                     @Override
@@ -37,4 +51,37 @@ public class FixedIntervalRetryStrategy implements RetryStrategy{
                 .build();
         return retryer.call(callable);
     }
+
+    /**
+     * 异步重试，等待期间不占用线程，调用超过截止时间后不再重试
+     */
+    @Override
+    public CompletableFuture<RpcResponse> doRetryAsync(Supplier<CompletableFuture<RpcResponse>> supplier) {
+        CompletableFuture<RpcResponse> result = new CompletableFuture<>();
+        attempt(supplier, 1, result);
+        return result;
+    }
+
+    private void attempt(Supplier<CompletableFuture<RpcResponse>> supplier, int attemptNumber,
+                         CompletableFuture<RpcResponse> result) {
+        CompletableFuture<RpcResponse> future;
+        try {
+            future = supplier.get();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((rpcResponse, e) -> {
+            if (e == null) {
+                result.complete(rpcResponse);
+                return;
+            }
+            if (attemptNumber >= MAX_ATTEMPTS || RpcDeadlineExceededException.isCause(e)) {
+                result.completeExceptionally(e);
+                return;
+            }
+            log.info("重试次数 {}", attemptNumber);
+            CompletableFuture.delayedExecutor(WAIT_SECONDS, TimeUnit.SECONDS)
+                    .execute(() -> attempt(supplier, attemptNumber + 1, result));
+        });
+    }
 }
@@ -3,6 +3,8 @@ package com.czh.example.fault.retry;
 import com.czh.example.model.RpcResponse;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * 重试策略接口
@@ -16,4 +18,11 @@ public interface RetryStrategy {
      * 重试策略
      */
     RpcResponse doRetry(Callable<RpcResponse> callable) throws Exception;
+
+    /**
+     * 异步重试策略（默认不重试）
+     */
+    default CompletableFuture<RpcResponse> doRetryAsync(Supplier<CompletableFuture<RpcResponse>> supplier) {
+        return supplier.get();
+    }
 }
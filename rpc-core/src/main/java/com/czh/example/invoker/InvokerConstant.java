@@ -0,0 +1,26 @@
+package com.czh.example.invoker;
+
+/**
+ * 方法调用器键名常量
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 10:18
+ */
+public interface InvokerConstant {
+
+    /**
+     * Method.invoke 反射调用
+     */
+    String REFLECT = "reflect";
+
+    /**
+     * MethodHandle 调用
+     */
+    String METHOD_HANDLE = "methodHandle";
+
+    /**
+     * LambdaMetafactory 生成的类直接调用
+     */
+    String LAMBDA = "lambda";
+}
@@ -0,0 +1,18 @@
+package com.czh.example.invoker;
+
+import java.lang.reflect.Method;
+
+/**
+ * 方法调用器生成器
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 10:15
+ */
+public interface InvokerGenerator {
+
+    /**
+     * 为服务方法生成调用器
+     */
+    MethodInvoker generate(Method method);
+}
@@ -0,0 +1,94 @@
+package com.czh.example.invoker;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+
+/**
+ * LambdaMetafactory 调用器生成器
+ * 为每个方法生成一个实现固定参数个数接口的类，调用时直接调用服务实现，JIT 可以内联
+ * void 方法、参数超过 4 个或生成失败时退化为 MethodHandle 调用器
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 10:45
+ */
+@Slf4j
+public class LambdaInvokerGenerator implements InvokerGenerator {
+
+    private static final Class<?>[] INVOKER_INTERFACES = {
+            Invoker0.class, Invoker1.class, Invoker2.class, Invoker3.class, Invoker4.class
+    };
+
+    private final InvokerGenerator fallbackGenerator = new MethodHandleInvokerGenerator();
+
+    @Override
+    public MethodInvoker generate(Method method) {
+        int parameterCount = method.getParameterCount();
+        if (method.getReturnType() == void.class || parameterCount >= INVOKER_INTERFACES.length) {
+            return fallbackGenerator.generate(method);
+        }
+        try {
+            return spin(method, parameterCount);
+        } catch (Throwable e) {
+            log.warn("{} 生成调用类失败，使用 MethodHandle 调用", method, e);
+            return fallbackGenerator.generate(method);
+        }
+    }
+
+    private MethodInvoker spin(Method method, int parameterCount) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+        MethodHandle implementation = lookup.unreflect(method);
+        Class<?> invokerInterface = INVOKER_INTERFACES[parameterCount];
+        CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                "invoke",
+                MethodType.methodType(invokerInterface),
+                MethodType.genericMethodType(parameterCount + 1),
+                implementation,
+                implementation.type().wrap());
+        Object invoker = callSite.getTarget().invoke();
+        switch (parameterCount) {
+            case 0: {
+                Invoker0 invoker0 = (Invoker0) invoker;
+                return (target, args) -> invoker0.invoke(target);
+            }
+            case 1: {
+                Invoker1 invoker1 = (Invoker1) invoker;
+                return (target, args) -> invoker1.invoke(target, args[0]);
+            }
+            case 2: {
+                Invoker2 invoker2 = (Invoker2) invoker;
+                return (target, args) -> invoker2.invoke(target, args[0], args[1]);
+            }
+            case 3: {
+                Invoker3 invoker3 = (Invoker3) invoker;
+                return (target, args) -> invoker3.invoke(target, args[0], args[1], args[2]);
+            }
+            default: {
+                Invoker4 invoker4 = (Invoker4) invoker;
+                return (target, args) -> invoker4.invoke(target, args[0], args[1], args[2], args[3]);
+            }
+        }
+    }
+
+    public interface Invoker0 {
+        Object invoke(Object target);
+    }
+
+    public interface Invoker1 {
+        Object invoke(Object target, Object arg0);
+    }
+
+    public interface Invoker2 {
+        Object invoke(Object target, Object arg0, Object arg1);
+    }
+
+    public interface Invoker3 {
+        Object invoke(Object target, Object arg0, Object arg1, Object arg2);
+    }
+
+    public interface Invoker4 {
+        Object invoke(Object target, Object arg0, Object arg1, Object arg2, Object arg3);
+    }
+}
@@ -0,0 +1,33 @@
+package com.czh.example.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * MethodHandle 调用器生成器
+ * 把方法句柄适配为 (Object, Object[])Object 后用 invokeExact 调用，省去反射的访问检查和参数校验
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 10:30
+ */
+public class MethodHandleInvokerGenerator implements InvokerGenerator {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    @Override
+    public MethodInvoker generate(Method method) {
+        MethodHandle methodHandle;
+        try {
+            method.trySetAccessible();
+            methodHandle = MethodHandles.lookup().unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(String.format("%s 方法句柄生成失败", method), e);
+        }
+        return (target, args) -> (Object) methodHandle.invokeExact(target, args);
+    }
+}
@@ -0,0 +1,22 @@
+package com.czh.example.invoker;
+
+/**
+ * 方法调用器（服务提供者）
+ * 注册服务时为每个方法生成，请求处理时直接调用服务实现
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 10:10
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+    /**
+     * 调用方法，业务异常原样抛出（不包装为 InvocationTargetException）
+     *
+     * @param target 服务实例
+     * @param args   参数列表
+     * @return 返回值，void 方法返回 null
+     */
+    Object invoke(Object target, Object[] args) throws Throwable;
+}
@@ -0,0 +1,26 @@
+package com.czh.example.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 反射调用器生成器：Method.invoke，每次调用都有访问检查、参数校验和装箱
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 10:20
+ */
+public class ReflectInvokerGenerator implements InvokerGenerator {
+
+    @Override
+    public MethodInvoker generate(Method method) {
+        method.trySetAccessible();
+        return (target, args) -> {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
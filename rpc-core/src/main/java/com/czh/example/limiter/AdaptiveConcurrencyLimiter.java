@@ -0,0 +1,154 @@
+package com.czh.example.limiter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发限制（梯度算法，服务提供者每个服务一个）
+ * 每收集一个窗口的请求耗时（从收到请求到执行完成，包含排队时间），比较长期平均耗时与本窗口平均耗时：
+ * 耗时没有上升时上限增加 sqrt(limit)，耗时上升时按比例（最多减半）降低上限，再做平滑，限制在 [minLimit, maxLimit]
+ * 正在处理的请求数达到上限时直接拒绝，避免请求在队列中堆积
+ * 窗口统计是近似的（并发更新时个别样本可能计入下一个窗口），只影响调整速度
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 16:00
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 每个窗口的样本数
+     */
+    private static final int WINDOW_SAMPLES = 50;
+
+    /**
+     * 长期平均耗时的窗口数（指数加权）
+     */
+    private static final double LONG_WINDOW = 20;
+
+    /**
+     * 耗时容忍度：本窗口平均耗时不超过长期平均的该倍数时不降低上限
+     */
+    private static final double TOLERANCE = 1.5;
+
+    /**
+     * 新上限的平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private volatile int limit;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * 本窗口内正在处理的请求数的最大值，远低于上限时说明上限没有被用满，不再增加
+     */
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    private final LongAdder rttSum = new LongAdder();
+
+    private final LongAdder sampleCount = new LongAdder();
+
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    /**
+     * 长期平均耗时（纳秒），只在更新上限时读写
+     */
+    private double longRtt;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * 获取一个并发许可，达到上限时返回 false
+     */
+    public boolean acquire() {
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= limit) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+        maxInflight.accumulateAndGet(current + 1, Math::max);
+        return true;
+    }
+
+    /**
+     * 释放许可
+     *
+     * @param rttNanos 请求耗时（纳秒），小于 0 时不作为样本（取消、丢弃、流调用等）
+     */
+    public void release(long rttNanos) {
+        inflight.decrementAndGet();
+        if (rttNanos < 0) {
+            return;
+        }
+        rttSum.add(rttNanos);
+        sampleCount.increment();
+        if (sampleCount.sum() >= WINDOW_SAMPLES && updating.compareAndSet(false, true)) {
+            try {
+                long count = sampleCount.sumThenReset();
+                long sum = rttSum.sumThenReset();
+                if (count > 0) {
+                    update(sum / (double) count, maxInflight.getAndSet(inflight.get()));
+                }
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    private void update(double shortRtt, int windowMaxInflight) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt = longRtt * (1 - 1 / LONG_WINDOW) + shortRtt / LONG_WINDOW;
+        }
+        // 耗时明显下降（负载减轻）时，长期平均更快地跟上
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+        int current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / Math.max(shortRtt, 1)));
+        double newLimit = current * gradient + Math.sqrt(current);
+        if (windowMaxInflight < current / 2) {
+            newLimit = Math.min(newLimit, current);
+        }
+        newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = (int) Math.min(maxLimit, Math.max(minLimit, Math.round(newLimit)));
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 正在处理的请求数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 累计拒绝的请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -0,0 +1,156 @@
+package com.czh.example.limiter;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 限流注册器（服务提供者）
+ * 按服务（接口全限定名）和方法（接口全限定名#方法名，同名重载方法共用）登记令牌桶，
+ * 请求需同时通过方法和服务的限流（被服务限流拒绝时归还方法的令牌），没有登记的服务不限流
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 18:50
+ */
+public class RateLimiterRegistry {
+
+    /**
+     * 服务的限流：服务名 -> 令牌桶
+     */
+    private static final Map<String, TokenBucketRateLimiter> SERVICE_LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * 方法的限流：服务名 -> 方法名 -> 令牌桶
+     */
+    private static final Map<String, Map<String, TokenBucketRateLimiter>> METHOD_LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * 上次按配置登记的限流的键，重新加载配置时先删除
+     */
+    private static final Set<String> CONFIG_KEYS = new HashSet<>();
+
+    /**
+     * 按配置登记限流，替换上次按配置登记的限流（注解登记的不受影响）
+     *
+     * @param rateLimits 接口全限定名或接口全限定名#方法名 -> 每秒请求数
+     */
+    public static synchronized void setLimits(Map<String, Integer> rateLimits) {
+        for (String key : CONFIG_KEYS) {
+            setLimit(key, 0);
+        }
+        CONFIG_KEYS.clear();
+        if (rateLimits == null) {
+            return;
+        }
+        rateLimits.forEach((key, permitsPerSecond) -> {
+            setLimit(key, permitsPerSecond == null ? 0 : permitsPerSecond);
+            CONFIG_KEYS.add(key);
+        });
+    }
+
+    private static void setLimit(String key, int permitsPerSecond) {
+        int index = key.indexOf('#');
+        if (index < 0) {
+            setServiceLimit(key, permitsPerSecond);
+        } else {
+            setMethodLimit(key.substring(0, index), key.substring(index + 1), permitsPerSecond);
+        }
+    }
+
+    /**
+     * 登记服务的限流，小于等于 0 表示不限流
+     */
+    public static void setServiceLimit(String serviceName, int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            SERVICE_LIMITERS.remove(serviceName);
+            return;
+        }
+        SERVICE_LIMITERS.put(serviceName, new TokenBucketRateLimiter(permitsPerSecond));
+    }
+
+    /**
+     * 登记方法的限流，小于等于 0 表示不限流
+     */
+    public static void setMethodLimit(String serviceName, String methodName, int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            Map<String, TokenBucketRateLimiter> methodLimiters = METHOD_LIMITERS.get(serviceName);
+            if (methodLimiters != null) {
+                methodLimiters.remove(methodName);
+            }
+            return;
+        }
+        METHOD_LIMITERS.computeIfAbsent(serviceName, key -> new ConcurrentHashMap<>())
+                .put(methodName, new TokenBucketRateLimiter(permitsPerSecond));
+    }
+
+    /**
+     * 获取请求的令牌（先方法后服务），被限流返回 false
+     */
+    public static boolean tryAcquire(String serviceName, String methodName) {
+        if (serviceName == null) {
+            return true;
+        }
+        TokenBucketRateLimiter methodLimiter = null;
+        Map<String, TokenBucketRateLimiter> methodLimiters = METHOD_LIMITERS.get(serviceName);
+        if (methodLimiters != null && methodName != null) {
+            methodLimiter = methodLimiters.get(methodName);
+            if (methodLimiter != null && !methodLimiter.tryAcquire()) {
+                return false;
+            }
+        }
+        TokenBucketRateLimiter serviceLimiter = SERVICE_LIMITERS.get(serviceName);
+        if (serviceLimiter == null || serviceLimiter.tryAcquire()) {
+            return true;
+        }
+        // 请求没有被处理，方法的令牌不应被消耗
+        if (methodLimiter != null) {
+            methodLimiter.release();
+        }
+        return false;
+    }
+
+    /**
+     * 归还请求的方法和服务令牌（获取令牌后请求因服务繁忙没有执行）
+     */
+    public static void release(String serviceName, String methodName) {
+        if (serviceName == null) {
+            return;
+        }
+        Map<String, TokenBucketRateLimiter> methodLimiters = METHOD_LIMITERS.get(serviceName);
+        if (methodLimiters != null && methodName != null) {
+            TokenBucketRateLimiter methodLimiter = methodLimiters.get(methodName);
+            if (methodLimiter != null) {
+                methodLimiter.release();
+            }
+        }
+        TokenBucketRateLimiter serviceLimiter = SERVICE_LIMITERS.get(serviceName);
+        if (serviceLimiter != null) {
+            serviceLimiter.release();
+        }
+    }
+
+    /**
+     * 服务的限流（速率、拒绝数），没有返回空
+     */
+    public static TokenBucketRateLimiter getServiceLimiter(String serviceName) {
+        return SERVICE_LIMITERS.get(serviceName);
+    }
+
+    /**
+     * 方法的限流（速率、拒绝数），没有返回空
+     */
+    public static TokenBucketRateLimiter getMethodLimiter(String serviceName, String methodName) {
+        Map<String, TokenBucketRateLimiter> methodLimiters = METHOD_LIMITERS.get(serviceName);
+        return methodLimiters == null ? null : methodLimiters.get(methodName);
+    }
+
+    /**
+     * 删除服务的所有限流
+     */
+    public static void remove(String serviceName) {
+        SERVICE_LIMITERS.remove(serviceName);
+        METHOD_LIMITERS.remove(serviceName);
+    }
+}
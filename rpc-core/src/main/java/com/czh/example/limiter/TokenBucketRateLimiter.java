@@ -0,0 +1,148 @@
+package com.czh.example.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌桶限流（无锁、分段）
+ * 令牌桶按速率和容量平均拆分成若干段，每段只用一个 long 记录“下一个令牌的理论发放时间”，
+ * 获取令牌时 CAS 推进该时间，超过容量对应的时间即拒绝（与令牌桶等价，不需要定时补充令牌）
+ * 线程优先使用按线程散列的分段，该段没有令牌时再依次尝试其他分段，总速率仍不超过配置值
+ * 各分段相隔一个缓存行，避免伪共享
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 18:20
+ */
+public class TokenBucketRateLimiter {
+
+    /**
+     * 最大分段数
+     */
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * 分段间隔（long 的个数），每个分段独占一个缓存行
+     */
+    private static final int PADDING = 8;
+
+    private final int permitsPerSecond;
+
+    private final int mask;
+
+    /**
+     * 每个分段的下一个令牌的理论发放时间（System.nanoTime）
+     */
+    private final AtomicLongArray stripes;
+
+    /**
+     * 每个分段发放一个令牌的间隔（纳秒）
+     */
+    private final long intervalNanos;
+
+    /**
+     * 每个分段容量对应的时间（纳秒）
+     */
+    private final long burstNanos;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public TokenBucketRateLimiter(int permitsPerSecond) {
+        this(permitsPerSecond, permitsPerSecond);
+    }
+
+    /**
+     * @param permitsPerSecond 每秒发放的令牌数
+     * @param burst            令牌桶容量（允许的突发请求数）
+     */
+    public TokenBucketRateLimiter(int permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripeHint 期望的分段数，按速率和容量（每个分段至少每秒一个令牌、容量至少一个）及上限调整为 2 的幂
+     */
+    TokenBucketRateLimiter(int permitsPerSecond, int burst, int stripeHint) {
+        if (permitsPerSecond <= 0) {
+            throw new RuntimeException("限流速率必须大于0：" + permitsPerSecond);
+        }
+        burst = Math.max(1, burst);
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(Math.min(MAX_STRIPES, stripeHint),
+                Math.min(permitsPerSecond, burst))));
+        this.permitsPerSecond = permitsPerSecond;
+        this.mask = stripeCount - 1;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) * stripeCount / permitsPerSecond;
+        this.burstNanos = intervalNanos * (burst / stripeCount);
+        this.stripes = new AtomicLongArray(stripeCount * PADDING);
+        // 初始时令牌桶是满的
+        long now = System.nanoTime();
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.set(i * PADDING, now - burstNanos);
+        }
+    }
+
+    /**
+     * 获取一个令牌，没有令牌时立即返回 false
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        int home = System.identityHashCode(Thread.currentThread());
+        for (int i = 0; i <= mask; i++) {
+            if (tryAcquire((home + i) & mask, now)) {
+                return true;
+            }
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    private boolean tryAcquire(int stripe, long now) {
+        int index = stripe * PADDING;
+        while (true) {
+            long next = stripes.get(index);
+            // 令牌桶已满时不再累积
+            long updated = (next - now > 0 ? next : now) + intervalNanos;
+            if (updated - now > burstNanos) {
+                return false;
+            }
+            if (stripes.compareAndSet(index, next, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还一个令牌（获取后请求没有被处理，例如被其他限流拒绝），令牌桶已满时忽略
+     */
+    public void release() {
+        long now = System.nanoTime();
+        int index = (System.identityHashCode(Thread.currentThread()) & mask) * PADDING;
+        while (true) {
+            long next = stripes.get(index);
+            long full = now - burstNanos;
+            if (next - full <= 0) {
+                return;
+            }
+            long updated = next - intervalNanos;
+            if (stripes.compareAndSet(index, next, updated - full > 0 ? updated : full)) {
+                return;
+            }
+        }
+    }
+
+    int getStripeCount() {
+        return mask + 1;
+    }
+
+    public int getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * 累计拒绝的请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,75 @@
+package com.czh.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 连接握手消息
+ * 服务消费者建立连接后发送（方法表为空），服务提供者回复本进程导出的方法ID表
+ * 双方同时交换各自支持的压缩器、分片大小、心跳周期以及是否处理取消消息、批量消息和请求的超时时间
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/18 9:30
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HandshakeMessage implements Serializable {
+
+    /**
+     * 方法ID表：服务名#方法签名 -> 方法ID
+     */
+    private Map<String, Integer> methodIds;
+
+    /**
+     * 本端可以解压的压缩器，对端只使用其中的压缩器，旧版本为空时不压缩
+     */
+    private List<String> compressors;
+
+    /**
+     * 本端发送大消息使用的分片大小，双方取较小值，旧版本为 0 时不分片
+     */
+    private int fragmentSize;
+
+    /**
+     * 本端的心跳周期，大于 0 表示会回复心跳，旧版本为 0 时不向其发送心跳
+     */
+    private long heartbeatInterval;
+
+    /**
+     * 本端是否处理 CANCEL 消息，旧版本为 false 时不向其发送取消
+     */
+    private boolean cancel;
+
+    /**
+     * 本端是否处理 BATCH 消息，旧版本为 false 时不向其批量发送
+     */
+    private boolean batch;
+
+    /**
+     * 本端是否按请求的超时时间计算截止时间，旧版本为 false 时请求不携带超时时间
+     */
+    private boolean deadline;
+
+    public HandshakeMessage(Map<String, Integer> methodIds) {
+        this.methodIds = methodIds;
+    }
+
+    public HandshakeMessage(Map<String, Integer> methodIds, List<String> compressors) {
+        this.methodIds = methodIds;
+        this.compressors = compressors;
+    }
+
+    /**
+     * 协商分片大小：双方都支持时取较小值，否则不分片
+     */
+    public static int negotiateFragmentSize(int fragmentSize, int peerFragmentSize) {
+        return fragmentSize > 0 && peerFragmentSize > 0 ? Math.min(fragmentSize, peerFragmentSize) : 0;
+    }
+}
@@ -2,6 +2,7 @@ package com.czh.example.model;
 
 import com.czh.example.constant.RpcConstant;
 import com.czh.example.serializer.Serializer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -38,4 +39,15 @@ public class RpcRequest implements Serializable {
 
 //    参数列表
     private  Object[] args;
+
+//    方法ID（连接握手后由服务提供者分配），不为空时请求不再携带服务名、方法名和参数类型；为空时不写出，旧版本服务提供者可以解析
+    private Integer methodId;
+
+//    超时时间（单位毫秒，发送时的剩余时间），服务提供者据此计算截止时间，超过截止时间的请求不再执行；为空表示不限制
+//    只在握手确认服务提供者支持截止时间后发送
+    private Long timeout;
+
+//    调用的截止时间（System.nanoTime），只在服务消费者本地使用，不序列化；每次发送（重试、换节点）按剩余时间设置超时时间
+    @JsonIgnore
+    private transient Long deadline;
 }
@@ -72,6 +72,13 @@ public class ServiceMetaInfo {
         return String.format("%s:%s:%s:%s",serviceName,serviceVersion,serviceHost,servicePort);
     }
 
+    /**
+     * 获取服务节点的TCP地址（host:port），作为消费端连接池的键
+     */
+    public String getServiceHostPort() {
+        return String.format("%s:%s", serviceHost, servicePort);
+    }
+
     /**
      * 获取完整服务地址
      * 服务消费者调用
@@ -0,0 +1,79 @@
+package com.czh.example.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 流消息，与请求使用同一个 requestId
+ * STREAM_DATA：一个元素（data、dataType）
+ * STREAM_CREDIT：接收方允许发送方再发送的元素个数（credit）
+ * STREAM_END：发送方的流结束，exception 不为空表示异常结束；cancel 为 true 表示接收方取消（不再接收）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/23 9:30
+ */
+@Data
+@NoArgsConstructor
+public class StreamMessage implements Serializable {
+
+    /**
+     * 元素
+     */
+    private Object data;
+
+    /**
+     * 元素类型
+     */
+    private Class<?> dataType;
+
+    /**
+     * 授予的发送额度
+     */
+    private int credit;
+
+    /**
+     * 接收方取消
+     */
+    private boolean cancel;
+
+    /**
+     * 结束信息
+     */
+    private String message;
+
+    /**
+     * 异常信息
+     */
+    private Exception exception;
+
+    public static StreamMessage data(Object data) {
+        StreamMessage streamMessage = new StreamMessage();
+        streamMessage.setData(data);
+        streamMessage.setDataType(data == null ? null : data.getClass());
+        return streamMessage;
+    }
+
+    public static StreamMessage credit(int credit) {
+        StreamMessage streamMessage = new StreamMessage();
+        streamMessage.setCredit(credit);
+        return streamMessage;
+    }
+
+    public static StreamMessage end(Throwable e) {
+        StreamMessage streamMessage = new StreamMessage();
+        if (e != null) {
+            streamMessage.setMessage(e.getMessage());
+            streamMessage.setException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
+        }
+        return streamMessage;
+    }
+
+    public static StreamMessage cancel() {
+        StreamMessage streamMessage = new StreamMessage();
+        streamMessage.setCancel(true);
+        return streamMessage;
+    }
+}
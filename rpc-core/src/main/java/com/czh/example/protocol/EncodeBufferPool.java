@@ -0,0 +1,143 @@
+package com.czh.example.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编码缓冲区池
+ * 按 2 的幂划分容量等级（256B ~ 1MB），每个等级缓存有限个堆缓冲区，
+ * 消息写入 Socket 完成后归还；超过 1MB 的缓冲区不缓存
+ * 提供命中/未命中统计，用于调整每个等级的缓存数量
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/21 9:30
+ */
+public class EncodeBufferPool {
+
+    private static final int MIN_SHIFT = 8;
+
+    private static final int MAX_SHIFT = 20;
+
+    private static final int CLASS_COUNT = MAX_SHIFT - MIN_SHIFT + 1;
+
+    /**
+     * 每个容量等级的空闲缓冲区
+     */
+    private static final List<Queue<ByteBuf>> FREE_QUEUES = new ArrayList<>(CLASS_COUNT);
+
+    private static final AtomicInteger[] FREE_COUNTS = new AtomicInteger[CLASS_COUNT];
+
+    /**
+     * 每个容量等级最多缓存的缓冲区数量
+     */
+    private static volatile int maxPooledPerClass = 64;
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    /**
+     * 归还时因等级已满或容量不合适而丢弃的数量
+     */
+    private static final AtomicLong DISCARD_COUNT = new AtomicLong();
+
+    static {
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            FREE_QUEUES.add(new ConcurrentLinkedQueue<>());
+            FREE_COUNTS[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * 获取容量不小于 sizeHint 的缓冲区
+     */
+    public static ByteBuf acquire(int sizeHint) {
+        int index = indexFor(sizeHint);
+        if (index < 0) {
+            MISS_COUNT.incrementAndGet();
+            return Unpooled.buffer(sizeHint);
+        }
+        ByteBuf byteBuf = FREE_QUEUES.get(index).poll();
+        if (byteBuf == null) {
+            MISS_COUNT.incrementAndGet();
+            return Unpooled.buffer(1 << (index + MIN_SHIFT));
+        }
+        FREE_COUNTS[index].decrementAndGet();
+        HIT_COUNT.incrementAndGet();
+        return byteBuf;
+    }
+
+    /**
+     * 归还缓冲区（写入完成后调用，之后不能再使用该缓冲区）
+     */
+    public static void release(ByteBuf byteBuf) {
+        int capacity = byteBuf.capacity();
+        //写入时扩容可能改变容量，按实际容量归入等级
+        int index = Integer.bitCount(capacity) == 1 ? indexFor(capacity) : -1;
+        if (index < 0 || FREE_COUNTS[index].incrementAndGet() > maxPooledPerClass) {
+            if (index >= 0) {
+                FREE_COUNTS[index].decrementAndGet();
+            }
+            DISCARD_COUNT.incrementAndGet();
+            return;
+        }
+        byteBuf.clear();
+        FREE_QUEUES.get(index).offer(byteBuf);
+    }
+
+    /**
+     * 容量等级下标，超出缓存范围返回 -1
+     */
+    private static int indexFor(int size) {
+        int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    public static void setMaxPooledPerClass(int maxPooledPerClass) {
+        EncodeBufferPool.maxPooledPerClass = Math.max(0, maxPooledPerClass);
+    }
+
+    public static int getMaxPooledPerClass() {
+        return maxPooledPerClass;
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.get();
+    }
+
+    public static long getDiscardCount() {
+        return DISCARD_COUNT.get();
+    }
+
+    /**
+     * 命中率
+     */
+    public static double getHitRatio() {
+        long hit = HIT_COUNT.get();
+        long total = hit + MISS_COUNT.get();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 当前缓存的缓冲区数量
+     */
+    public static int getPooledCount() {
+        int count = 0;
+        for (AtomicInteger freeCount : FREE_COUNTS) {
+            count += freeCount.get();
+        }
+        return count;
+    }
+}
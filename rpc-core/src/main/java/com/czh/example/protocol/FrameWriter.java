@@ -0,0 +1,20 @@
+package com.czh.example.protocol;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * 消息帧的写入目标：直接写入 Socket，或先放入连接的写队列合并后写入
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 9:30
+ */
+@FunctionalInterface
+public interface FrameWriter {
+
+    /**
+     * 写入编码好的消息帧，写入完成（交给操作系统）时返回的结果完成
+     */
+    Future<Void> write(Buffer buffer);
+}
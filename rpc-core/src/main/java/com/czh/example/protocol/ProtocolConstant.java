@@ -23,4 +23,9 @@ public class ProtocolConstant {
      * 协议版本号
      */
     public static byte PROTOCOL_VERSION = 0x1;
+
+    /**
+     * 请求消息的状态：单向调用，服务提供者不发送响应
+     */
+    public static byte REQUEST_ONE_WAY = 0x1;
 }
@@ -39,10 +39,16 @@ public class ProtocolMessage<T> {
         private byte version;
 
         /**
-         * 序列化器
+         * 序列化器（编码时与压缩器合并写入同一个字节，低 4 位）
          */
         private byte serializer;
 
+        /**
+         * 压缩器（序列化器字节的高 4 位）
+         * 编码时表示允许使用的压缩器，消息体小于阈值时不压缩；解码后为实际使用的压缩器
+         */
+        private byte compressor;
+
         /**
          * 消息类型（请求 / 响应）
          */
@@ -63,5 +69,10 @@ public class ProtocolMessage<T> {
          */
         private int bodyLength;
 
+        /**
+         * 分片大小（编码时使用，不写入消息头），大于 0 且消息超过该大小时拆分为多个 FRAGMENT 消息发送
+         */
+        private int fragmentSize;
+
     }
 }
@@ -0,0 +1,88 @@
+package com.czh.example.protocol;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.czh.example.factory.CompressorFactory;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 协议消息的压缩枚举
+ * key 写在消息头序列化器字节的高 4 位，旧版本只使用低 4 位表示序列化器，未协商压缩时高 4 位为 0
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 10:00
+ */
+@Getter
+public enum ProtocolMessageCompressorEnum {
+
+    NONE(0, "none"),
+    LZ4(1, "lz4"),
+    SNAPPY(2, "snappy"),
+    ZSTD(3, "zstd"),
+    DEFLATE(4, "deflate");
+
+    private final int key;
+
+    private final String value;
+
+    ProtocolMessageCompressorEnum(int key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * 当前平台可用的压缩器（握手时告知对端）
+     */
+    public static List<String> getAvailableValues() {
+        return Arrays.stream(values())
+                .filter(item -> item != NONE && CompressorFactory.isAvailable(item.value))
+                .map(item -> item.value)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 协商压缩器：本端配置的压缩器在本平台可用且对端支持时使用，否则不压缩
+     *
+     * @param compressor 本端配置的压缩器
+     * @param peerCompressors 对端握手时告知的压缩器，旧版本为空
+     */
+    public static ProtocolMessageCompressorEnum negotiate(String compressor, List<String> peerCompressors) {
+        ProtocolMessageCompressorEnum compressorEnum = getEnumByValue(compressor);
+        if (compressorEnum == null || compressorEnum == NONE || peerCompressors == null
+                || !peerCompressors.contains(compressor) || !CompressorFactory.isAvailable(compressor)) {
+            return NONE;
+        }
+        return compressorEnum;
+    }
+
+    /**
+     * 根据key获取枚举
+     */
+    public static ProtocolMessageCompressorEnum getEnumByKey(int key) {
+        for (ProtocolMessageCompressorEnum anEnum : ProtocolMessageCompressorEnum.values()) {
+            if (anEnum.key == key) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据value获取枚举
+     */
+    public static ProtocolMessageCompressorEnum getEnumByValue(String value) {
+        if (ObjectUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ProtocolMessageCompressorEnum anEnum : ProtocolMessageCompressorEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -1,13 +1,19 @@
 package com.czh.example.protocol;
 
+import com.czh.example.factory.CompressorFactory;
 import com.czh.example.factory.SerializerFactory;
+import com.czh.example.model.HandshakeMessage;
 import com.czh.example.model.RpcRequest;
 import com.czh.example.model.RpcResponse;
+import com.czh.example.model.StreamMessage;
 import com.czh.example.serializer.Serializer;
-import com.fasterxml.jackson.core.io.IOContext;
+import com.czh.example.utils.BufferUtil;
+import io.netty.buffer.ByteBufInputStream;
 import io.vertx.core.buffer.Buffer;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import static com.czh.example.protocol.ProtocolConstant.MESSAGE_HEADER_LENGTH;
 
@@ -19,7 +25,20 @@ import static com.czh.example.protocol.ProtocolConstant.MESSAGE_HEADER_LENGTH;
  */
 public class ProtocolMessageDecoder {
 
-    public static ProtocolMessage<?> decode(Buffer buffer) throws IOException{
+    /**
+     * 解码不压缩的消息（未握手的连接）
+     */
+    public static ProtocolMessage<?> decode(Buffer buffer) throws IOException {
+        return decode(buffer, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * 解码消息
+     *
+     * @param maxMessageLength 消息体解压后的最大长度，超过时解码失败
+     * @param compressed       连接是否已握手协商压缩（本端告知过对端可以解压的压缩器），未协商时拒绝压缩的消息
+     */
+    public static ProtocolMessage<?> decode(Buffer buffer, int maxMessageLength, boolean compressed) throws IOException {
         //分别从指定位置读出Buffer
         ProtocolMessage.Header header = new ProtocolMessage.Header();
         byte magic = buffer.getByte(0);
@@ -28,13 +47,14 @@ public class ProtocolMessageDecoder {
         }
         header.setMagic(magic);
         header.setVersion(buffer.getByte(1));
-        header.setSerializer(buffer.getByte(2));
+        //序列化器字节：低 4 位为序列化器，高 4 位为压缩器
+        byte serializerByte = buffer.getByte(2);
+        header.setSerializer((byte) (serializerByte & 0x0F));
+        header.setCompressor((byte) ((serializerByte >> 4) & 0x0F));
         header.setType(buffer.getByte(3));
         header.setStatus(buffer.getByte(4));
-        header.setRequestId(buffer.getByte(5));
+        header.setRequestId(buffer.getLong(5));
         header.setBodyLength(buffer.getInt(13));
-        //解决粘包问题，只读指定长度的数据
-        byte[] bodyBytes = buffer.getBytes(MESSAGE_HEADER_LENGTH, MESSAGE_HEADER_LENGTH + header.getBodyLength());
         //解析消息体
         ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
         if(serializerEnum == null){
@@ -45,16 +65,98 @@ public class ProtocolMessageDecoder {
         if(messageTypeEnum == null){
             throw new RuntimeException("消息类型不存在");
         }
-        switch (messageTypeEnum) {
-            case REQUEST -> {
-                RpcRequest request = serializer.deserialize(bodyBytes, RpcRequest.class);
-                return new ProtocolMessage<>(header, request);
+        //心跳和取消没有消息体
+        if (messageTypeEnum == ProtocolMessageTypeEnum.HEART_BEAT || messageTypeEnum == ProtocolMessageTypeEnum.CANCEL) {
+            return new ProtocolMessage<>(header, null);
+        }
+        //解决粘包问题，只读指定长度的数据；消息体以切片的形式交给序列化器，不复制
+        try (InputStream bodyStream = getBodyStream(buffer, header, maxMessageLength, compressed)) {
+            switch (messageTypeEnum) {
+                case REQUEST -> {
+                    RpcRequest request = serializer.deserialize(bodyStream, RpcRequest.class);
+                    return new ProtocolMessage<>(header, request);
+                }
+                case RESPONSE -> {
+                    RpcResponse rpcResponse = serializer.deserialize(bodyStream, RpcResponse.class);
+                    return new ProtocolMessage<>(header, rpcResponse);
+                }
+                case HANDSHAKE -> {
+                    HandshakeMessage handshakeMessage = serializer.deserialize(bodyStream, HandshakeMessage.class);
+                    return new ProtocolMessage<>(header, handshakeMessage);
+                }
+                case STREAM_DATA, STREAM_END, STREAM_CREDIT -> {
+                    StreamMessage streamMessage = serializer.deserialize(bodyStream, StreamMessage.class);
+                    return new ProtocolMessage<>(header, streamMessage);
+                }
+                default -> throw new RuntimeException("暂不支持该消息类型");
             }
-            case RESPONSE -> {
-                RpcResponse rpcResponse = serializer.deserialize(bodyBytes, RpcResponse.class);
-                return new ProtocolMessage<>(header, rpcResponse);
+        }
+    }
+
+    /**
+     * 消息体输入流，压缩的消息体边读边解压，解压后的长度超过 maxMessageLength 时读取失败
+     */
+    private static InputStream getBodyStream(Buffer buffer, ProtocolMessage.Header header, int maxMessageLength,
+                                             boolean compressed) throws IOException {
+        InputStream bodyStream = new ByteBufInputStream(
+                BufferUtil.unwrap(buffer).slice(MESSAGE_HEADER_LENGTH, header.getBodyLength()));
+        if (header.getCompressor() == ProtocolMessageCompressorEnum.NONE.getKey()) {
+            return bodyStream;
+        }
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByKey(header.getCompressor());
+        if (compressorEnum == null) {
+            throw new RuntimeException("压缩协议不存在");
+        }
+        // 只接受握手时告知对端的压缩器（本平台可用的压缩器）
+        if (!compressed || !CompressorFactory.isAvailable(compressorEnum.getValue())) {
+            throw new RuntimeException("压缩协议未协商：" + compressorEnum.getValue());
+        }
+        return new LimitedInputStream(CompressorFactory.getInstance(compressorEnum.getValue()).decompress(bodyStream),
+                maxMessageLength);
+    }
+
+    /**
+     * 限制读取长度的输入流，防止小的压缩消息解压出超过上限的数据
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream inputStream, int limit) {
+            super(inputStream);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new IOException("解压后的消息长度超过上限");
             }
-            default -> throw new RuntimeException("暂不支持该消息类型");
         }
     }
 }
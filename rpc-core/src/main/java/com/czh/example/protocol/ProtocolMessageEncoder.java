@@ -1,13 +1,37 @@
 package com.czh.example.protocol;
 
+import com.czh.example.application.RpcApplication;
+import com.czh.example.compress.Compressor;
+import com.czh.example.factory.CompressorFactory;
 import com.czh.example.factory.SerializerFactory;
+import com.czh.example.model.RpcResponse;
+import com.czh.example.model.StreamMessage;
 import com.czh.example.serializer.Serializer;
+import com.czh.example.utils.BufferUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.czh.example.protocol.ProtocolConstant.MESSAGE_HEADER_LENGTH;
 
 /**
  * 编码
+ * 一次写入：从缓冲区池取预估大小的缓冲区，预留消息头位置，序列化器直接写入消息体，最后回填消息头和消息体长度
+ * 消息头允许压缩且消息体达到阈值时，压缩消息体并在消息头中标记压缩器
+ * 消息头设置了分片大小且编码后的请求或响应超过该大小时，拆分为多个 FRAGMENT 消息逐个发送；
+ * 不分片的消息超过单帧上限时不发送，只让该消息失败
+ * 批量发送时多个完整消息（头 + 体）依次放入一个 BATCH 消息的消息体，一次写入
  *
  * @author czh
  * @version 1.0.0
@@ -15,32 +39,297 @@ import java.io.IOException;
  */
 public class ProtocolMessageEncoder {
 
+    /**
+     * 预估的消息大小：消息体类型 -> 近期编码后的大小，用于预先分配足够的缓冲区，避免扩容
+     */
+    private static final Map<Class<?>, Integer> SIZE_HINTS = new ConcurrentHashMap<>();
+
+    private static final int DEFAULT_SIZE_HINT = 256;
+
+    /**
+     * 批量消息体的最大长度，超过时拆成多个批量消息
+     */
+    private static final int MAX_BATCH_LENGTH = 256 * 1024;
+
+    /**
+     * 超过该长度的消息不放入批量消息，单独发送（可以分片）
+     */
+    private static final int MAX_BATCH_ITEM_LENGTH = 64 * 1024;
+
     /**
      * 编码
+     * 返回的缓冲区不会归还到缓冲区池，发送消息使用 write
      */
     public static Buffer encode(ProtocolMessage<?> protocolMessage) throws IOException {
         if(protocolMessage == null || protocolMessage.getHeader() == null){
             return Buffer.buffer();
         }
+        return BufferUtil.wrap(encodeToByteBuf(protocolMessage));
+    }
+
+    /**
+     * 编码并写入 Socket，写入完成后缓冲区归还到缓冲区池
+     */
+    public static Future<Void> write(NetSocket socket, ProtocolMessage<?> protocolMessage) throws IOException {
+        return write((FrameWriter) socket::write, protocolMessage);
+    }
+
+    /**
+     * 编码并写入（Socket 或连接的写队列），写入完成后缓冲区归还到缓冲区池
+     */
+    public static Future<Void> write(FrameWriter writer, ProtocolMessage<?> protocolMessage) throws IOException {
+        return writeEncoded(writer, encodeToByteBuf(protocolMessage), protocolMessage.getHeader());
+    }
+
+    /**
+     * 编码多个消息并放入 BATCH 消息一次写入，写入完成后缓冲区归还到缓冲区池
+     * 编码失败的消息跳过，对应的结果直接失败；较大的消息单独发送
+     *
+     * @return 与 protocolMessages 一一对应的写入结果
+     */
+    public static List<Future<Void>> writeBatch(FrameWriter writer, List<? extends ProtocolMessage<?>> protocolMessages) {
+        List<Future<Void>> results = new ArrayList<>(protocolMessages.size());
+        List<ByteBuf> frames = new ArrayList<>();
+        List<Promise<Void>> promises = new ArrayList<>();
+        int batchLength = 0;
+        ProtocolMessage.Header batchHeader = null;
+        for (ProtocolMessage<?> protocolMessage : protocolMessages) {
+            ByteBuf byteBuf;
+            try {
+                byteBuf = encodeToByteBuf(protocolMessage);
+            } catch (IOException | RuntimeException e) {
+                results.add(Future.failedFuture(e));
+                continue;
+            }
+            if (byteBuf.readableBytes() > MAX_BATCH_ITEM_LENGTH) {
+                results.add(writeEncoded(writer, byteBuf, protocolMessage.getHeader()));
+                continue;
+            }
+            if (batchLength + byteBuf.readableBytes() > MAX_BATCH_LENGTH) {
+                flushBatch(writer, batchHeader, frames, promises, batchLength);
+                frames = new ArrayList<>();
+                promises = new ArrayList<>();
+                batchLength = 0;
+            }
+            Promise<Void> promise = Promise.promise();
+            frames.add(byteBuf);
+            promises.add(promise);
+            results.add(promise.future());
+            batchLength += byteBuf.readableBytes();
+            batchHeader = protocolMessage.getHeader();
+        }
+        if (!frames.isEmpty()) {
+            flushBatch(writer, batchHeader, frames, promises, batchLength);
+        }
+        return results;
+    }
+
+    /**
+     * 写入一个批量消息：BATCH 消息头 + 各消息的完整帧（组合缓冲区，不复制），只有一个消息时直接发送
+     */
+    private static void flushBatch(FrameWriter writer, ProtocolMessage.Header header, List<ByteBuf> frames,
+                                   List<Promise<Void>> promises, int batchLength) {
+        if (frames.size() == 1) {
+            writeEncoded(writer, frames.get(0), header).onComplete(promises.get(0));
+            return;
+        }
+        ByteBuf batchHeader = Unpooled.buffer(MESSAGE_HEADER_LENGTH, MESSAGE_HEADER_LENGTH);
+        batchHeader.writeByte(header.getMagic());
+        batchHeader.writeByte(header.getVersion());
+        batchHeader.writeByte(header.getSerializer() & 0x0F);
+        batchHeader.writeByte(ProtocolMessageTypeEnum.BATCH.getKey());
+        batchHeader.writeByte(0);
+        batchHeader.writeLong(0L);
+        batchHeader.writeInt(batchLength);
+        ByteBuf[] components = new ByteBuf[frames.size() + 1];
+        components[0] = batchHeader;
+        for (int i = 0; i < frames.size(); i++) {
+            components[i + 1] = frames.get(i).slice();
+        }
+        writer.write(BufferUtil.wrap(Unpooled.wrappedBuffer(components))).onComplete(result -> {
+            for (ByteBuf frame : frames) {
+                EncodeBufferPool.release(frame);
+            }
+            for (Promise<Void> promise : promises) {
+                promise.handle(result);
+            }
+        });
+    }
+
+    /**
+     * 写入编码好的消息，需要时拆分为多个分片
+     * 不分片的消息超过单帧上限时对端会关闭连接：不发送该消息，响应改为发送错误响应，流元素改为发送带异常的流结束
+     */
+    private static Future<Void> writeEncoded(FrameWriter writer, ByteBuf byteBuf, ProtocolMessage.Header header) {
+        if (header.getFragmentSize() > 0 && byteBuf.readableBytes() > MESSAGE_HEADER_LENGTH + header.getFragmentSize()
+                && isFragmentable(header.getType())) {
+            Promise<Void> promise = Promise.promise();
+            writeFragment(writer, byteBuf, header, promise);
+            return promise.future();
+        }
+        int bodyLength = byteBuf.readableBytes() - MESSAGE_HEADER_LENGTH;
+        if (bodyLength > RpcApplication.getRpcConfig().getMaxFrameLength()) {
+            EncodeBufferPool.release(byteBuf);
+            RuntimeException e = new RuntimeException("消息长度超过上限：" + bodyLength);
+            writeOversize(writer, header, e);
+            return Future.failedFuture(e);
+        }
+        return writer.write(BufferUtil.wrap(byteBuf))
+                .onComplete(result -> EncodeBufferPool.release(byteBuf));
+    }
+
+    /**
+     * 消息超过单帧上限时通知对端该消息失败：响应回复错误，流元素结束流；请求只让调用方失败
+     */
+    private static void writeOversize(FrameWriter writer, ProtocolMessage.Header header, RuntimeException e) {
+        Object body;
+        ProtocolMessageTypeEnum type;
+        if (header.getType() == ProtocolMessageTypeEnum.RESPONSE.getKey()) {
+            RpcResponse rpcResponse = new RpcResponse();
+            rpcResponse.setMessage(e.getMessage());
+            rpcResponse.setException(e);
+            body = rpcResponse;
+            type = ProtocolMessageTypeEnum.RESPONSE;
+        } else if (header.getType() == ProtocolMessageTypeEnum.STREAM_DATA.getKey()) {
+            body = StreamMessage.end(e);
+            type = ProtocolMessageTypeEnum.STREAM_END;
+        } else {
+            return;
+        }
+        ProtocolMessage.Header errorHeader = new ProtocolMessage.Header();
+        errorHeader.setMagic(header.getMagic());
+        errorHeader.setVersion(header.getVersion());
+        errorHeader.setSerializer(header.getSerializer());
+        errorHeader.setType((byte) type.getKey());
+        errorHeader.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        errorHeader.setRequestId(header.getRequestId());
+        try {
+            ByteBuf errorBuf = encodeToByteBuf(new ProtocolMessage<>(errorHeader, body));
+            writer.write(BufferUtil.wrap(errorBuf)).onComplete(result -> EncodeBufferPool.release(errorBuf));
+        } catch (IOException | RuntimeException encodeException) {
+            // 错误消息也无法编码时放弃，调用方通过返回的结果得知失败
+        }
+    }
+
+    /**
+     * 只拆分请求和响应：流消息按顺序交给同一个流，分片交错会打乱顺序
+     */
+    private static boolean isFragmentable(byte type) {
+        return type == ProtocolMessageTypeEnum.REQUEST.getKey() || type == ProtocolMessageTypeEnum.RESPONSE.getKey();
+    }
+
+    /**
+     * 发送下一个分片：分片内容是完整消息（头 + 体）的一段，上一个分片写入完成后再发送，
+     * 期间同一连接上的其他消息可以插入，避免大消息阻塞小请求
+     */
+    private static void writeFragment(FrameWriter writer, ByteBuf frame, ProtocolMessage.Header header, Promise<Void> promise) {
+        int length = Math.min(header.getFragmentSize(), frame.readableBytes());
+        boolean last = length == frame.readableBytes();
+        ByteBuf fragmentHeader = Unpooled.buffer(MESSAGE_HEADER_LENGTH, MESSAGE_HEADER_LENGTH);
+        fragmentHeader.writeByte(header.getMagic());
+        fragmentHeader.writeByte(header.getVersion());
+        fragmentHeader.writeByte(header.getSerializer() & 0x0F);
+        fragmentHeader.writeByte(ProtocolMessageTypeEnum.FRAGMENT.getKey());
+        //状态字节标记最后一个分片
+        fragmentHeader.writeByte(last ? 1 : 0);
+        fragmentHeader.writeLong(header.getRequestId());
+        fragmentHeader.writeInt(length);
+        ByteBuf fragment = Unpooled.wrappedBuffer(fragmentHeader, frame.readSlice(length));
+        writer.write(BufferUtil.wrap(fragment)).onComplete(result -> {
+            if (result.failed()) {
+                EncodeBufferPool.release(frame);
+                promise.fail(result.cause());
+            } else if (last) {
+                EncodeBufferPool.release(frame);
+                promise.complete();
+            } else {
+                writeFragment(writer, frame, header, promise);
+            }
+        });
+    }
+
+    private static ByteBuf encodeToByteBuf(ProtocolMessage<?> protocolMessage) throws IOException {
         ProtocolMessage.Header header = protocolMessage.getHeader();
-        //依次向缓冲区写入字节
-        Buffer buffer = Buffer.buffer();
-        buffer.appendByte(header.getMagic());
-        buffer.appendByte(header.getVersion());
-        buffer.appendByte(header.getSerializer());
-        buffer.appendByte(header.getType());
-        buffer.appendByte(header.getStatus());
-        buffer.appendLong(header.getRequestId());
         //获取序列化器
         ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
         if(serializerEnum == null){
             throw new RuntimeException("序列化协议不存在");
         }
         Serializer serializer = SerializerFactory.getInstance(serializerEnum.getValue());
-        byte[] bodyBytes = serializer.serialize(protocolMessage.getBody());
-        //写入body长度和数据
-        buffer.appendInt(bodyBytes.length);
-        buffer.appendBytes(bodyBytes);
-        return buffer;
-    };
+        Object body = protocolMessage.getBody();
+        Class<?> bodyType = body == null ? Void.class : body.getClass();
+
+        ByteBuf byteBuf = EncodeBufferPool.acquire(SIZE_HINTS.getOrDefault(bodyType, DEFAULT_SIZE_HINT));
+        try {
+            //预留消息头，序列化器直接写入消息体
+            byteBuf.writerIndex(MESSAGE_HEADER_LENGTH);
+            //心跳等没有消息体的消息只发送消息头
+            if (body != null) {
+                serializer.serialize(body, new ByteBufOutputStream(byteBuf));
+            }
+            int bodyLength = byteBuf.writerIndex() - MESSAGE_HEADER_LENGTH;
+            updateSizeHint(bodyType, byteBuf.writerIndex());
+            //消息体达到阈值时压缩
+            int compressor = ProtocolMessageCompressorEnum.NONE.getKey();
+            if (header.getCompressor() != ProtocolMessageCompressorEnum.NONE.getKey()
+                    && bodyLength >= RpcApplication.getRpcConfig().getCompressThreshold()) {
+                ByteBuf compressed = compress(byteBuf, bodyLength, header.getCompressor());
+                if (compressed != null) {
+                    EncodeBufferPool.release(byteBuf);
+                    byteBuf = compressed;
+                    bodyLength = byteBuf.writerIndex() - MESSAGE_HEADER_LENGTH;
+                    compressor = header.getCompressor();
+                }
+            }
+            //回填消息头，压缩器写在序列化器字节的高 4 位
+            byteBuf.setByte(0, header.getMagic());
+            byteBuf.setByte(1, header.getVersion());
+            byteBuf.setByte(2, (compressor << 4) | (header.getSerializer() & 0x0F));
+            byteBuf.setByte(3, header.getType());
+            byteBuf.setByte(4, header.getStatus());
+            byteBuf.setLong(5, header.getRequestId());
+            byteBuf.setInt(13, bodyLength);
+        } catch (IOException | RuntimeException e) {
+            EncodeBufferPool.release(byteBuf);
+            throw e;
+        }
+        return byteBuf;
+    }
+
+    /**
+     * 压缩消息体到新的缓冲区，压缩后没有变小返回 null
+     */
+    private static ByteBuf compress(ByteBuf byteBuf, int bodyLength, int compressorKey) throws IOException {
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByKey(compressorKey);
+        if (compressorEnum == null) {
+            throw new RuntimeException("压缩协议不存在");
+        }
+        Compressor compressor = CompressorFactory.getInstance(compressorEnum.getValue());
+        ByteBuf compressed = EncodeBufferPool.acquire(MESSAGE_HEADER_LENGTH + bodyLength / 2);
+        try {
+            compressed.writerIndex(MESSAGE_HEADER_LENGTH);
+            try (OutputStream outputStream = compressor.compress(new ByteBufOutputStream(compressed))) {
+                byteBuf.getBytes(MESSAGE_HEADER_LENGTH, outputStream, bodyLength);
+            }
+        } catch (IOException | RuntimeException e) {
+            EncodeBufferPool.release(compressed);
+            throw e;
+        }
+        if (compressed.writerIndex() - MESSAGE_HEADER_LENGTH >= bodyLength) {
+            EncodeBufferPool.release(compressed);
+            return null;
+        }
+        return compressed;
+    }
+
+    /**
+     * 大消息立即提高预估大小，之后逐渐回落（并发更新丢失无影响，只是预估）
+     */
+    private static void updateSizeHint(Class<?> bodyType, int size) {
+        Integer hint = SIZE_HINTS.get(bodyType);
+        int newHint = hint == null || size > hint ? size : Math.max(size, hint - (hint >> 3));
+        if (hint == null || hint != newHint) {
+            SIZE_HINTS.put(bodyType, newHint);
+        }
+    }
 }
@@ -13,7 +13,15 @@ public enum ProtocolMessageStatusEnum {
 
     OK("ok",20),
     BAD_REQUEST("badRequest",40),
-    BAD_RESPONSE("badResponse",50);
+    /**
+     * 被限流：服务或方法的请求速率超过上限，请求没有执行，服务消费者应暂时避开该节点
+     */
+    RATE_LIMITED("rateLimited",42),
+    BAD_RESPONSE("badResponse",50),
+    /**
+     * 服务繁忙：排队请求数或排队时间超过上限，请求没有执行，服务消费者可以换一个节点重试
+     */
+    SERVICE_BUSY("serviceBusy",53);
 
     private final String text;
 
@@ -24,6 +32,13 @@ public enum ProtocolMessageStatusEnum {
         this.value = value;
     }
 
+    /**
+     * 请求被服务提供者拒绝（没有执行），可以换一个节点重试
+     */
+    public static boolean isRejected(int value) {
+        return value == SERVICE_BUSY.value || value == RATE_LIMITED.value;
+    }
+
     /**
      * 根据value获取枚举
      */
@@ -14,7 +14,14 @@ public enum ProtocolMessageTypeEnum {
     REQUEST(0),
     RESPONSE(1),
     HEART_BEAT(2),
-    OTHERS(3);
+    OTHERS(3),
+    HANDSHAKE(4),
+    STREAM_DATA(5),
+    STREAM_END(6),
+    STREAM_CREDIT(7),
+    FRAGMENT(8),
+    CANCEL(9),
+    BATCH(10);
 
     private final int key;
 
@@ -0,0 +1,102 @@
+package com.czh.example.proxy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 异步调用句柄
+ * 对同步声明的服务接口发起异步调用，例如：
+ * <pre>
+ * CompletableFuture&lt;User&gt; future = asyncProxy.call(userService -> userService.getUser(user));
+ * </pre>
+ * 调用期间代理对象不等待响应，而是把请求的 Future 记录到当前线程，由句柄取出返回
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/13 9:40
+ */
+public class AsyncServiceProxy<T> {
+
+    /**
+     * 当前线程正在记录的异步调用
+     */
+    private static final ThreadLocal<CompletableFuture<Object>[]> CAPTURE = new ThreadLocal<>();
+
+    private final T proxy;
+
+    public AsyncServiceProxy(T proxy) {
+        this.proxy = proxy;
+    }
+
+    /**
+     * 异步调用有返回值的方法
+     */
+    public <R> CompletableFuture<R> call(Function<T, R> invocation) {
+        CompletableFuture<Object>[] holder = new CompletableFuture[1];
+        CAPTURE.set(holder);
+        try {
+            invocation.apply(proxy);
+        } finally {
+            CAPTURE.remove();
+        }
+        if (holder[0] == null) {
+            throw new IllegalStateException("异步调用未发起远程请求");
+        }
+        return (CompletableFuture<R>) holder[0];
+    }
+
+    /**
+     * 异步调用无返回值的方法
+     */
+    public CompletableFuture<Void> run(Consumer<T> invocation) {
+        return call(service -> {
+            invocation.accept(service);
+            return null;
+        }).thenApply(result -> null);
+    }
+
+    /**
+     * 当前线程是否处于异步调用记录中
+     */
+    static boolean isCapturing() {
+        return CAPTURE.get() != null;
+    }
+
+    /**
+     * 记录异步调用的 Future
+     */
+    static void capture(CompletableFuture<Object> future) {
+        CompletableFuture<Object>[] holder = CAPTURE.get();
+        if (holder != null && holder[0] == null) {
+            holder[0] = future;
+        }
+    }
+
+    /**
+     * 异步调用期间代理方法的占位返回值（基本类型不能返回 null）
+     */
+    static Object getDefaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return (char) 0;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.czh.example.proxy;
+
+import com.czh.example.application.RpcApplication;
+import com.czh.example.config.RpcConfig;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ByteBuddy 代理生成器
+ * 为每个服务接口生成一个实现类（缓存），方法体直接调用 ServiceProxy.invoke(描述数组, 方法下标, 参数)，
+ * 不经过 InvocationHandler 和 Method 查找
+ * 方法描述由构造方法传入、保存在代理实例中，每次创建代理时按当前配置构建，重新初始化配置后创建的代理使用新配置
+ * 生成失败时退化为 JDK 动态代理
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 10:00
+ */
+@Slf4j
+public class ByteBuddyProxyGenerator implements ProxyGenerator {
+
+    private static final String DESCRIPTORS_FIELD = "descriptors";
+
+    /**
+     * 服务接口 -> 生成的代理类
+     */
+    private final Map<Class<?>, ProxyClass> proxyClassMap = new ConcurrentHashMap<>();
+
+    private final ProxyGenerator fallbackGenerator = new JdkProxyGenerator();
+
+    /**
+     * 生成的代理类及其方法顺序（方法描述数组的下标）
+     */
+    private static class ProxyClass {
+
+        private final Class<?> type;
+
+        private final List<Method> methods;
+
+        ProxyClass(Class<?> type, List<Method> methods) {
+            this.type = type;
+            this.methods = methods;
+        }
+    }
+
+    @Override
+    public <T> T getProxy(Class<T> serviceClass) {
+        try {
+            ProxyClass proxyClass = proxyClassMap.computeIfAbsent(serviceClass, this::generate);
+            // 按当前配置构建方法描述
+            RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+            MethodDescriptor[] descriptors = new MethodDescriptor[proxyClass.methods.size()];
+            for (int i = 0; i < descriptors.length; i++) {
+                descriptors[i] = new MethodDescriptor(proxyClass.methods.get(i), rpcConfig);
+            }
+            return serviceClass.cast(proxyClass.type.getDeclaredConstructor(MethodDescriptor[].class)
+                    .newInstance((Object) descriptors));
+        } catch (Exception e) {
+            log.warn("{} 生成代理类失败，使用 JDK 动态代理", serviceClass.getName(), e);
+            return fallbackGenerator.getProxy(serviceClass);
+        }
+    }
+
+    private ProxyClass generate(Class<?> serviceClass) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : serviceClass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                methods.add(method);
+            }
+        }
+        Method invokeMethod;
+        try {
+            invokeMethod = ServiceProxy.class.getMethod("invoke", MethodDescriptor[].class, int.class, Object[].class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+
+        DynamicType.Builder<Object> builder;
+        try {
+            builder = new ByteBuddy()
+                    .subclass(Object.class)
+                    .name(serviceClass.getName() + "$RpcProxy")
+                    .implement(serviceClass)
+                    .defineField(DESCRIPTORS_FIELD, MethodDescriptor[].class, Visibility.PRIVATE, FieldManifestation.FINAL)
+                    .defineConstructor(Visibility.PUBLIC)
+                    .withParameters(MethodDescriptor[].class)
+                    .intercept(MethodCall.invoke(Object.class.getConstructor())
+                            .andThen(FieldAccessor.ofField(DESCRIPTORS_FIELD).setsArgumentAt(0)));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        for (int i = 0; i < methods.size(); i++) {
+            builder = builder.method(ElementMatchers.is(methods.get(i)))
+                    .intercept(MethodCall.invoke(invokeMethod)
+                            .withField(DESCRIPTORS_FIELD)
+                            .with(i)
+                            .withArgumentArray()
+                            .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+        }
+        Class<?> proxyClass = builder.make()
+                .load(serviceClass.getClassLoader())
+                .getLoaded();
+        return new ProxyClass(proxyClass, methods);
+    }
+}
@@ -0,0 +1,22 @@
+package com.czh.example.proxy;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * JDK 动态代理生成器
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 9:45
+ */
+public class JdkProxyGenerator implements ProxyGenerator {
+
+    @Override
+    public <T> T getProxy(Class<T> serviceClass) {
+        return (T) Proxy.newProxyInstance(
+                serviceClass.getClassLoader(),
+                new Class[]{serviceClass},
+                new ServiceProxy(serviceClass)
+        );
+    }
+}
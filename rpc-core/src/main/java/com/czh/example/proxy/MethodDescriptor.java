@@ -0,0 +1,206 @@
+package com.czh.example.proxy;
+
+import com.czh.example.annotation.RpcMethod;
+import com.czh.example.config.RpcConfig;
+import com.czh.example.constant.RpcConstant;
+import com.czh.example.context.RpcContext;
+import com.czh.example.factory.RegistryFactory;
+import com.czh.example.factory.RetryStrategyFactory;
+import com.czh.example.factory.TolerantStrategyFactory;
+import com.czh.example.fault.retry.RetryStrategy;
+import com.czh.example.fault.tolerant.TolerantStrategy;
+import com.czh.example.loadbalancer.LoadBalancer;
+import com.czh.example.loadbalancer.LoadbalancerFactory;
+import com.czh.example.model.RpcRequest;
+import com.czh.example.model.ServiceMetaInfo;
+import com.czh.example.registry.LocalRegistry;
+import com.czh.example.registry.LocalServiceMethod;
+import com.czh.example.registry.Registry;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务方法描述（服务消费者）
+ * 创建代理时按方法预先计算调用所需的元数据（服务键、注册中心、负载均衡器、重试和容错策略等），
+ * 调用时只做服务发现、负载均衡选择和发送
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 9:20
+ */
+@Getter
+public class MethodDescriptor {
+
+    /**
+     * 服务接口方法
+     */
+    private final Method method;
+
+    /**
+     * 服务名称（接口全限定名）
+     */
+    private final String serviceName;
+
+    /**
+     * 方法名称
+     */
+    private final String methodName;
+
+    /**
+     * 参数类型列表
+     */
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 返回值类型
+     */
+    private final Class<?> returnType;
+
+    /**
+     * 是否异步方法（返回 CompletableFuture）
+     */
+    private final boolean async;
+
+    /**
+     * 是否服务端流方法（返回 Iterator、Stream 或 StreamSource）
+     */
+    private final boolean stream;
+
+    /**
+     * 是否单向调用（@RpcMethod(oneWay = true) 或 consumerConfig.oneWayMethods），不等待响应
+     */
+    private final boolean oneWay;
+
+    /**
+     * 客户端流参数的下标，没有为 -1；调用时传入 StreamChannel
+     */
+    private final int streamParamIndex;
+
+    /**
+     * 调用超时时间（单位毫秒）：@RpcMethod 指定的超时时间，没有时使用全局配置；客户端流方法为 0（不限制）
+     */
+    private final long timeout;
+
+    /**
+     * 方法ID表的键（服务名#方法签名），用于在连接上查找握手得到的方法ID
+     */
+    private final String methodKey;
+
+    /**
+     * 服务键（服务名:版本），用于服务发现
+     */
+    private final String serviceKey;
+
+    /**
+     * 负载均衡参数：调用方法名（请求路径），调用相同方法总会请求到同一个服务器节点上
+     */
+    private final Map<String, Object> loadBalancerParams;
+
+    private final Registry registry;
+
+    private final LoadBalancer loadBalancer;
+
+    private final RetryStrategy retryStrategy;
+
+    private final TolerantStrategy tolerantStrategy;
+
+    /**
+     * 调用本方法时回复被限流的节点：host:port -> 避开的截止时间（System.nanoTime）
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Long> rateLimitedNodes = new ConcurrentHashMap<>();
+
+    public MethodDescriptor(Method method, RpcConfig rpcConfig) {
+        this.method = method;
+        this.serviceName = method.getDeclaringClass().getName();
+        this.methodName = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+        this.returnType = method.getReturnType();
+        this.async = CompletableFuture.class.equals(returnType);
+        this.stream = LocalServiceMethod.isStream(returnType);
+        this.streamParamIndex = LocalServiceMethod.getStreamParamIndex(parameterTypes);
+        RpcMethod rpcMethod = method.getAnnotation(RpcMethod.class);
+        this.oneWay = (rpcMethod != null && rpcMethod.oneWay())
+                || rpcConfig.getConsumerConfig().getOneWayMethods().contains(serviceName + "#" + methodName);
+        if (oneWay && (!void.class.equals(returnType) || streamParamIndex >= 0)) {
+            throw new RuntimeException("单向调用的方法返回值必须为 void 且不能有流参数：" + serviceName + "#" + methodName);
+        }
+        if (streamParamIndex >= 0) {
+            //客户端流上传时间不可预估，不设置截止时间
+            this.timeout = 0;
+        } else if (rpcMethod != null && rpcMethod.timeout() > 0) {
+            this.timeout = rpcMethod.timeout();
+        } else {
+            this.timeout = rpcConfig.getConsumerConfig().getRequestTimeout();
+        }
+        this.methodKey = LocalRegistry.getMethodKey(serviceName, LocalServiceMethod.getSignature(methodName, parameterTypes));
+
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(serviceName);
+        serviceMetaInfo.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
+        this.serviceKey = serviceMetaInfo.getServiceKey();
+        this.loadBalancerParams = Collections.singletonMap("methodName", methodName);
+        this.registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        this.loadBalancer = LoadbalancerFactory.getInstance(rpcConfig.getLoadBalancer());
+        this.retryStrategy = RetryStrategyFactory.getInstance(rpcConfig.getRetryStrategy());
+        this.tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategy());
+    }
+
+    /**
+     * 构造请求
+     * 在服务方法中发起的调用不超过当前请求的剩余时间，截止时间沿调用链传递
+     * 构造时记录调用的截止时间，重试和换节点发送时只使用剩余时间
+     */
+    public RpcRequest newRequest(Object[] args) {
+        long remaining = RpcContext.getRemainingMillis();
+        if (remaining == 0) {
+            throw new RuntimeException("调用已超过截止时间：" + methodKey);
+        }
+        RpcRequest rpcRequest = new RpcRequest();
+        if (timeout > 0) {
+            long requestTimeout = remaining > 0 ? Math.min(timeout, remaining) : timeout;
+            rpcRequest.setTimeout(requestTimeout);
+            rpcRequest.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeout));
+        }
+        rpcRequest.setServiceName(serviceName);
+        rpcRequest.setMethodName(methodName);
+        rpcRequest.setParameterTypes(parameterTypes);
+        rpcRequest.setArgs(args);
+        return rpcRequest;
+    }
+
+    /**
+     * 节点回复被限流，在 backoffMillis 内调用本方法时避开该节点
+     */
+    public void backoff(String hostPort, long backoffMillis) {
+        if (backoffMillis > 0) {
+            rateLimitedNodes.put(hostPort, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+        }
+    }
+
+    /**
+     * 是否有节点在被限流后的避开时间内，已过期的记录顺便删除（没有记录时只判断一次空）
+     */
+    public boolean hasRateLimitedNodes() {
+        if (rateLimitedNodes.isEmpty()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        rateLimitedNodes.values().removeIf(until -> now - until >= 0);
+        return !rateLimitedNodes.isEmpty();
+    }
+
+    /**
+     * 节点是否在被限流后的避开时间内（先调用 hasRateLimitedNodes 删除过期记录）
+     */
+    public boolean isRateLimited(String hostPort) {
+        return rateLimitedNodes.containsKey(hostPort);
+    }
+}
@@ -0,0 +1,21 @@
+package com.czh.example.proxy;
+
+/**
+ * 服务代理生成器键名常量
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 9:42
+ */
+public interface ProxyConstant {
+
+    /**
+     * JDK 动态代理
+     */
+    String JDK = "jdk";
+
+    /**
+     * ByteBuddy 生成代理类
+     */
+    String BYTE_BUDDY = "byteBuddy";
+}
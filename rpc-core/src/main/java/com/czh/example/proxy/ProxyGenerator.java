@@ -0,0 +1,16 @@
+package com.czh.example.proxy;
+
+/**
+ * 服务代理生成器
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 9:40
+ */
+public interface ProxyGenerator {
+
+    /**
+     * 为服务接口生成代理对象
+     */
+    <T> T getProxy(Class<T> serviceClass);
+}
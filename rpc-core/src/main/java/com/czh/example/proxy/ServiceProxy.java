@@ -2,49 +2,65 @@ package com.czh.example.proxy;
 
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.IdUtil;
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
-import cn.hutool.json.JSONUtil;
 import com.czh.example.application.RpcApplication;
 import com.czh.example.config.RpcConfig;
-import com.czh.example.constant.RpcConstant;
-import com.czh.example.factory.RegistryFactory;
-import com.czh.example.factory.RetryStrategyFactory;
-import com.czh.example.factory.SerializerFactory;
-import com.czh.example.factory.TolerantStrategyFactory;
-import com.czh.example.fault.retry.RetryStrategy;
+import com.czh.example.fault.RpcDeadlineExceededException;
+import com.czh.example.fault.RpcRejectedException;
 import com.czh.example.fault.tolerant.TolerantStrategy;
-import com.czh.example.loadbalancer.LoadBalancer;
-import com.czh.example.loadbalancer.LoadbalancerFactory;
 import com.czh.example.model.RpcRequest;
 import com.czh.example.model.RpcResponse;
 import com.czh.example.model.ServiceMetaInfo;
-import com.czh.example.protocol.*;
-import com.czh.example.registry.Registry;
-import com.czh.example.serializer.Serializer;
+import com.czh.example.protocol.ProtocolMessageStatusEnum;
+import com.czh.example.server.tcp.InboundStream;
+import com.czh.example.server.tcp.StreamChannel;
 import com.czh.example.server.tcp.VertxTcpClient;
-import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.net.NetClient;
+import lombok.extern.slf4j.Slf4j;
 
 
-import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * JDK动态代理
+ * 调用逻辑在静态方法 invoke(MethodDescriptor, Object[]) 中，生成的代理类直接调用
  * invocation:调用
  * declare:声明
  *
  * @author czh
  */
+@Slf4j
 public class ServiceProxy implements InvocationHandler {
 
+    /**
+     * 方法描述缓存：接口方法 -> 方法描述，创建代理时构建，之后只读
+     */
+    private final Map<Method, MethodDescriptor> descriptorMap = new HashMap<>();
+
+    public ServiceProxy(Class<?> serviceClass) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        for (Method method : serviceClass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                descriptorMap.put(method, new MethodDescriptor(method, rpcConfig));
+            }
+        }
+    }
 
     /**
      * 调用代理
@@ -54,46 +70,67 @@ public class ServiceProxy implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        MethodDescriptor descriptor = descriptorMap.get(method);
+        if (descriptor == null) {
+            // Object 的方法（toString 等）不在接口方法表中
+            descriptor = new MethodDescriptor(method, RpcApplication.getRpcConfig());
+        }
+        return invoke(descriptor, args);
+    }
+
+    /**
+     * 生成的代理类调用：按方法下标取出代理实例持有的方法描述
+     */
+    public static Object invoke(MethodDescriptor[] descriptors, int index, Object[] args) {
+        return invoke(descriptors[index], args);
+    }
+
+    /**
+     * 发起远程调用，JDK 动态代理和生成的代理类共用
+     *
+     * @param descriptor 方法描述
+     * @param args 参数列表
+     * @return
+     */
+    public static Object invoke(MethodDescriptor descriptor, Object[] args) {
+//        流调用：服务端流返回迭代器或 Stream，客户端流参数传入 StreamChannel
+        if (descriptor.isStream() || descriptor.getStreamParamIndex() >= 0) {
+            return doInvokeStream(descriptor, args);
+        }
 //        构造请求
-        String serviceName = method.getDeclaringClass().getName();
-        RpcRequest rpcRequest = RpcRequest.builder()
-                .serviceName(serviceName)
-                .methodName(method.getName())
-                .parameterTypes(method.getParameterTypes())
-                .args(args)
-                .build();
-        try {
-//            从注册中心获取服务提供者请求地址
-            RpcConfig rpcConfig = RpcApplication.getRpcConfig();
-            Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
-            ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
-            serviceMetaInfo.setServiceName(serviceName);
-            serviceMetaInfo.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
-            List<ServiceMetaInfo> serviceMetaInfoList = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
-            if (CollUtil.isEmpty(serviceMetaInfoList)) {
-                throw new RuntimeException("暂无服务地址");
+        RpcRequest rpcRequest = descriptor.newRequest(args);
+
+//        单向调用：请求写入连接后即返回，不等待响应
+        if (descriptor.isOneWay()) {
+            CompletableFuture<Object> sendFuture = doInvokeOneWay(descriptor, rpcRequest);
+            if (AsyncServiceProxy.isCapturing()) {
+                AsyncServiceProxy.capture(sendFuture);
             }
+            return null;
+        }
 
-//            负载均衡
-            LoadBalancer loadBalancer = LoadbalancerFactory.getInstance(rpcConfig.getLoadBalancer());
-//            将调用方法名（请求路径）作为负载均衡参数，调用相同方法总会请求到同一个服务器节点上
-            HashMap<String, Object> requestParams = new HashMap<>();
-            requestParams.put("methodName", rpcRequest.getMethodName());
-            ServiceMetaInfo selectServiceMetaInfo = loadBalancer.select(requestParams, serviceMetaInfoList);
+//        异步调用：方法返回 CompletableFuture，或通过 AsyncServiceProxy 发起的调用，立即返回不阻塞调用线程
+        if (descriptor.isAsync()) {
+            return doInvokeAsync(descriptor, rpcRequest);
+        }
+        if (AsyncServiceProxy.isCapturing()) {
+            AsyncServiceProxy.capture(doInvokeAsync(descriptor, rpcRequest));
+            return AsyncServiceProxy.getDefaultValue(descriptor.getReturnType());
+        }
 
+        try {
+            ServiceMetaInfo selectServiceMetaInfo = selectService(descriptor);
 
             //            发送TCP请求
 //            重试策略
             RpcResponse rpcResponse = null;
             try {
-                RetryStrategy retryStrategy = RetryStrategyFactory.getInstance(rpcConfig.getRetryStrategy());
-                rpcResponse = retryStrategy.doRetry(() ->
-                        VertxTcpClient.doRequest(rpcRequest, selectServiceMetaInfo)
+                rpcResponse = descriptor.getRetryStrategy().doRetry(() ->
+                        doRequest(descriptor, rpcRequest, selectServiceMetaInfo, null, null).get()
                 );
             } catch (Exception e) {
                 //多次重试失败后触发容错机制
-                TolerantStrategy tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategy());
-                rpcResponse = tolerantStrategy.doTolerant(null,e);
+                rpcResponse = descriptor.getTolerantStrategy().doTolerant(null,e);
             }
             return rpcResponse.getData();
 
@@ -102,4 +139,227 @@ public class ServiceProxy implements InvocationHandler {
         }
 
     }
+
+    /**
+     * 异步调用，收到响应帧时完成，重试和容错同样以异步方式执行
+     * 调用方取消返回的 CompletableFuture 时，取消正在等待的请求（通知服务提供者停止执行），不再重试
+     */
+    private static CompletableFuture<Object> doInvokeAsync(MethodDescriptor descriptor, RpcRequest rpcRequest) {
+        ServiceMetaInfo selectServiceMetaInfo;
+        try {
+            selectServiceMetaInfo = selectService(descriptor);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<RpcResponse>> attempt = new AtomicReference<>();
+        resultFuture.whenComplete((data, e) -> {
+            CompletableFuture<RpcResponse> current = attempt.get();
+            if (resultFuture.isCancelled() && current != null) {
+                current.cancel(false);
+            }
+        });
+        descriptor.getRetryStrategy().doRetryAsync(() -> {
+                    if (resultFuture.isDone()) {
+                        return CompletableFuture.failedFuture(new CancellationException("调用已取消"));
+                    }
+                    return doRequest(descriptor, rpcRequest, selectServiceMetaInfo, null, attempt::set);
+                })
+                .exceptionally(e -> {
+                    //多次重试失败后触发容错机制
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    TolerantStrategy tolerantStrategy = descriptor.getTolerantStrategy();
+                    return tolerantStrategy.doTolerant(null,
+                            cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+                })
+                .thenApply(rpcResponse -> rpcResponse == null ? null : rpcResponse.getData())
+                .whenComplete((data, e) -> {
+                    if (e != null) {
+                        resultFuture.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    } else {
+                        resultFuture.complete(data);
+                    }
+                });
+        return resultFuture;
+    }
+
+    /**
+     * 发送请求，服务提供者拒绝执行（服务繁忙、被限流）时换一个节点再发送，不计入重试次数，所有节点都拒绝时失败
+     * 被限流的节点在配置的时间内避开；每次发送只使用到截止时间的剩余时间，已超过截止时间时不再发送
+     *
+     * @param rejectedNodes 已拒绝请求的节点（host:port），第一次被拒绝时创建，之前为空
+     * @param attemptHandler 每次发送时接收等待响应的 Future（用于取消），可以为空
+     */
+    private static CompletableFuture<RpcResponse> doRequest(MethodDescriptor descriptor, RpcRequest rpcRequest,
+                                                            ServiceMetaInfo serviceMetaInfo, Set<String> rejectedNodes,
+                                                            Consumer<CompletableFuture<RpcResponse>> attemptHandler) {
+        RpcRequest attemptRequest;
+        try {
+            attemptRequest = forAttempt(descriptor, rpcRequest);
+        } catch (RpcDeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<RpcResponse> responseFuture = VertxTcpClient.doRequestAsync(attemptRequest,
+                descriptor.getMethodKey(), serviceMetaInfo);
+        if (attemptHandler != null) {
+            attemptHandler.accept(responseFuture);
+        }
+        return responseFuture.exceptionallyCompose(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof RpcRejectedException)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            Set<String> rejected = rejectedNodes == null ? new HashSet<>() : rejectedNodes;
+            String hostPort = serviceMetaInfo.getServiceHostPort();
+            rejected.add(hostPort);
+            if (((RpcRejectedException) cause).getStatus() == ProtocolMessageStatusEnum.RATE_LIMITED) {
+                // 限流可能只针对某个方法，只在调用本方法时避开该节点
+                descriptor.backoff(hostPort, RpcApplication.getRpcConfig().getConsumerConfig().getRateLimitBackoff());
+            }
+            ServiceMetaInfo next;
+            try {
+                next = selectService(descriptor, rejected);
+            } catch (Exception selectException) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            if (next == null) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            return doRequest(descriptor, rpcRequest, next, rejected, attemptHandler);
+        });
+    }
+
+    /**
+     * 本次发送的请求：超时时间为到截止时间的剩余时间，不修改原请求
+     */
+    private static RpcRequest forAttempt(MethodDescriptor descriptor, RpcRequest rpcRequest) {
+        Long deadline = rpcRequest.getDeadline();
+        if (deadline == null) {
+            return rpcRequest;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new RpcDeadlineExceededException("调用已超过截止时间：" + descriptor.getMethodKey());
+        }
+        if (Long.valueOf(remaining).equals(rpcRequest.getTimeout())) {
+            return rpcRequest;
+        }
+        return new RpcRequest(rpcRequest.getServiceName(), rpcRequest.getMethodName(), rpcRequest.getServiceVersion(),
+                rpcRequest.getParameterTypes(), rpcRequest.getArgs(), rpcRequest.getMethodId(), remaining, deadline);
+    }
+
+    /**
+     * 单向调用，不重试（无法确认服务提供者是否收到），发送失败只记录日志
+     */
+    private static CompletableFuture<Object> doInvokeOneWay(MethodDescriptor descriptor, RpcRequest rpcRequest) {
+        CompletableFuture<Void> sendFuture;
+        try {
+            sendFuture = VertxTcpClient.doOneWay(rpcRequest, descriptor.getMethodKey(), selectService(descriptor));
+        } catch (Exception e) {
+            sendFuture = CompletableFuture.failedFuture(e);
+        }
+        return sendFuture.handle((v, e) -> {
+            if (e != null) {
+                log.warn("单向调用发送失败：{}", descriptor.getMethodKey(), e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 流调用（服务端流、客户端流、双向流），不重试（元素可能已部分发送或消费）
+     * 客户端流参数不随请求发送，请求发出后通道中的元素按服务提供者授予的额度发送
+     */
+    private static Object doInvokeStream(MethodDescriptor descriptor, Object[] args) {
+        StreamChannel<?> channel = null;
+        Object[] requestArgs = args;
+        int streamParamIndex = descriptor.getStreamParamIndex();
+        if (streamParamIndex >= 0) {
+            if (!(args[streamParamIndex] instanceof StreamChannel)) {
+                throw new RuntimeException("客户端流参数请传入 StreamChannel");
+            }
+            channel = (StreamChannel<?>) args[streamParamIndex];
+            requestArgs = args.clone();
+            requestArgs[streamParamIndex] = null;
+        }
+        RpcRequest rpcRequest = descriptor.newRequest(requestArgs);
+        try {
+            ServiceMetaInfo selectServiceMetaInfo = selectService(descriptor);
+            if (descriptor.isStream()) {
+                InboundStream<Object> stream = VertxTcpClient.doStream(rpcRequest, descriptor.getMethodKey(),
+                        selectServiceMetaInfo, channel);
+                if (Stream.class.equals(descriptor.getReturnType())) {
+                    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(stream, Spliterator.ORDERED), false)
+                            .onClose(stream::close);
+                }
+                return stream;
+            }
+            CompletableFuture<Object> resultFuture = VertxTcpClient.doClientStream(rpcRequest, descriptor.getMethodKey(),
+                            selectServiceMetaInfo, channel)
+                    .thenApply(rpcResponse -> rpcResponse == null ? null : rpcResponse.getData());
+            return descriptor.isAsync() ? resultFuture : resultFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("调用失败", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("调用失败", e);
+        }
+    }
+
+    /**
+     * 从注册中心获取服务提供者地址并负载均衡
+     */
+    private static ServiceMetaInfo selectService(MethodDescriptor descriptor) {
+        return selectService(descriptor, null);
+    }
+
+    /**
+     * 从注册中心获取服务提供者地址并负载均衡，跳过指定的节点
+     *
+     * @param excludedNodes 跳过的节点（host:port），为空时不跳过
+     * @return 没有其他节点时返回 null
+     */
+    private static ServiceMetaInfo selectService(MethodDescriptor descriptor, Set<String> excludedNodes) {
+//            从注册中心获取服务提供者请求地址
+        List<ServiceMetaInfo> serviceMetaInfoList = descriptor.getRegistry().serviceDiscovery(descriptor.getServiceKey());
+        if (CollUtil.isEmpty(serviceMetaInfoList)) {
+            throw new RuntimeException("暂无服务地址");
+        }
+
+//            跳过心跳检测到失效的地址（都可用时不复制列表），全部失效时仍从所有地址中选择
+        if (!serviceMetaInfoList.stream().allMatch(VertxTcpClient::isAvailable)) {
+            List<ServiceMetaInfo> availableList = serviceMetaInfoList.stream()
+                    .filter(VertxTcpClient::isAvailable)
+                    .collect(Collectors.toList());
+            if (!availableList.isEmpty()) {
+                serviceMetaInfoList = availableList;
+            }
+        }
+
+//            跳过被限流后还在避开时间内的节点，都在避开时间内时仍从这些地址中选择
+        if (descriptor.hasRateLimitedNodes()) {
+            List<ServiceMetaInfo> allowedList = serviceMetaInfoList.stream()
+                    .filter(serviceMetaInfo -> !descriptor.isRateLimited(serviceMetaInfo.getServiceHostPort()))
+                    .collect(Collectors.toList());
+            if (!allowedList.isEmpty()) {
+                serviceMetaInfoList = allowedList;
+            }
+        }
+
+//            跳过已拒绝请求的节点
+        if (CollUtil.isNotEmpty(excludedNodes)) {
+            serviceMetaInfoList = serviceMetaInfoList.stream()
+                    .filter(serviceMetaInfo -> !excludedNodes.contains(serviceMetaInfo.getServiceHostPort()))
+                    .collect(Collectors.toList());
+            if (serviceMetaInfoList.isEmpty()) {
+                return null;
+            }
+        }
+
+//            负载均衡，参数在方法描述中预先构建
+        return descriptor.getLoadBalancer().select(descriptor.getLoadBalancerParams(), serviceMetaInfoList);
+    }
+
 }
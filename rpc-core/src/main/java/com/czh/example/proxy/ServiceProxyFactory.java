@@ -1,10 +1,11 @@
 package com.czh.example.proxy;
 
-
-import java.lang.reflect.Proxy;
+import com.czh.example.application.RpcApplication;
+import com.czh.example.factory.ProxyGeneratorFactory;
 
 /**
  * 服务代理工厂（用于创建代理对象）
+ * 代理实现由配置 proxy 选择：JDK 动态代理或 ByteBuddy 生成的代理类
  */
 public class ServiceProxyFactory {
 
@@ -15,11 +16,18 @@ public class ServiceProxyFactory {
      * @param <T> 泛型
      */
     public static <T> T getProxy(Class<T> serviceClass){
-        return (T) Proxy.newProxyInstance(
-                serviceClass.getClassLoader(),
-                new Class[]{serviceClass},
-                new ServiceProxy()
-        );
+        ProxyGenerator proxyGenerator = ProxyGeneratorFactory.getInstance(RpcApplication.getRpcConfig().getProxy());
+        return proxyGenerator.getProxy(serviceClass);
+    }
+
+    /**
+     * 根据服务类获取异步调用句柄
+     * @param serviceClass 需要代理的服务
+     * @return 异步调用句柄，调用立即返回 CompletableFuture
+     * @param <T> 泛型
+     */
+    public static <T> AsyncServiceProxy<T> getAsyncProxy(Class<T> serviceClass){
+        return new AsyncServiceProxy<>(getProxy(serviceClass));
     }
 }
 
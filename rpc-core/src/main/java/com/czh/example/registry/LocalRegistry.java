@@ -2,6 +2,11 @@ package com.czh.example.registry;
 
 
 
+import com.czh.example.application.RpcApplication;
+import com.czh.example.config.ProviderConfig;
+import com.czh.example.factory.InvokerGeneratorFactory;
+
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -9,36 +14,109 @@ import java.util.concurrent.ConcurrentHashMap;
  * 本地注册中心
  * 之后就可以根据要调用的服务名称获取到对应的实现类，然后通过反射进行方法调用了。
  * 理解：将提供者注册，以便服务者调用
+ * 注册时创建服务实例并解析方法表，请求处理时直接使用
  */
 public class LocalRegistry {
 
     /**
      * 注册信息存储
      * key ：服务名称
-     * value ：服务的实现类
+     * value ：本地服务（实现类、实例、方法表）
+     */
+    private static final Map<String, LocalService> MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 方法ID -> 本地服务
+     */
+    private static final Map<Integer, LocalService> METHOD_ID_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 注册服务，实例作用域取服务提供者配置
      */
-    private static final Map<String,Class<?>> MAP =new ConcurrentHashMap<>();
+    public static void register(String serviceName, Class<?> implClass) {
+        ProviderConfig providerConfig = RpcApplication.getRpcConfig().getProviderConfig();
+        register(LocalService.of(serviceName, implClass, providerConfig.getServiceScope(),
+                InvokerGeneratorFactory.getInstance(providerConfig.getInvoker())));
+    }
 
     /**
-     * 注册服务
+     * 注册服务，使用已创建的实例（例如 Spring Bean）
      */
-    public static void register(String serviceName,Class<?> implClass){
-        MAP.put(serviceName,implClass);
-        System.out.println("LocalRegistry:服务提供者成功注册服务----"+"服务接口名："+serviceName
-                +"---服务实现类："+implClass);
+    public static void registerInstance(String serviceName, Object instance) {
+        ProviderConfig providerConfig = RpcApplication.getRpcConfig().getProviderConfig();
+        register(LocalService.of(serviceName, instance, InvokerGeneratorFactory.getInstance(providerConfig.getInvoker())));
+    }
+
+    private static void register(LocalService localService) {
+        LocalService oldService = MAP.put(localService.getServiceName(), localService);
+        if (oldService != null) {
+            removeMethodIds(oldService);
+        }
+        for (LocalServiceMethod serviceMethod : localService.getSignatureMap().values()) {
+            METHOD_ID_MAP.put(serviceMethod.getMethodId(), localService);
+        }
+        System.out.println("LocalRegistry:服务提供者成功注册服务----"+"服务接口名："+localService.getServiceName()
+                +"---服务实现类："+localService.getImplClass());
     }
 
     /**
-     * 获取服务
+     * 获取服务实现类
      */
     public static Class<?> get(String serviceName){
+        LocalService localService = MAP.get(serviceName);
+        return localService == null ? null : localService.getImplClass();
+    }
+
+    /**
+     * 获取本地服务
+     */
+    public static LocalService getService(String serviceName) {
         return MAP.get(serviceName);
     }
 
+    /**
+     * 按方法ID获取本地服务
+     */
+    public static LocalService getServiceByMethodId(int methodId) {
+        return METHOD_ID_MAP.get(methodId);
+    }
+
+    /**
+     * 获取方法ID表（握手时发送给服务消费者）
+     * key ：服务名#方法签名
+     * value ：方法ID
+     */
+    public static Map<String, Integer> getMethodIds() {
+        Map<String, Integer> methodIds = new HashMap<>();
+        for (LocalService localService : MAP.values()) {
+            for (LocalServiceMethod serviceMethod : localService.getSignatureMap().values()) {
+                methodIds.put(getMethodKey(localService.getServiceName(), serviceMethod.getSignature()),
+                        serviceMethod.getMethodId());
+            }
+        }
+        return methodIds;
+    }
+
+    /**
+     * 方法ID表的键
+     */
+    public static String getMethodKey(String serviceName, String signature) {
+        return serviceName + "#" + signature;
+    }
+
     /**
      * 删除服务
      */
     public static void remove(String serviceName){
-        MAP.remove(serviceName);
+        LocalService localService = MAP.remove(serviceName);
+        if (localService != null) {
+            removeMethodIds(localService);
+        }
+    }
+
+    private static void removeMethodIds(LocalService localService) {
+        for (LocalServiceMethod serviceMethod : localService.getSignatureMap().values()) {
+            METHOD_ID_MAP.remove(serviceMethod.getMethodId());
+        }
     }
 }
@@ -0,0 +1,144 @@
+package com.czh.example.registry;
+
+import com.czh.example.invoker.InvokerGenerator;
+import lombok.Getter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * 本地服务（服务提供者）
+ * 注册时创建服务实例并预先解析所有方法，请求处理时不再反射查找方法和创建对象
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/16 9:50
+ */
+public class LocalService {
+
+    /**
+     * 服务名称
+     */
+    @Getter
+    private final String serviceName;
+
+    /**
+     * 服务实现类
+     */
+    @Getter
+    private final Class<?> implClass;
+
+    /**
+     * 单例实例（原型作用域为空）
+     */
+    private final Object instance;
+
+    /**
+     * 原型作用域使用的构造器
+     */
+    private final Constructor<?> constructor;
+
+    /**
+     * 方法表：方法名 -> 同名方法（重载）
+     */
+    private final Map<String, LocalServiceMethod[]> methodMap;
+
+    /**
+     * 方法表：方法签名 -> 方法
+     */
+    @Getter
+    private final Map<String, LocalServiceMethod> signatureMap;
+
+    /**
+     * 方法表：方法ID -> 方法
+     */
+    private final Map<Integer, LocalServiceMethod> methodIdMap;
+
+    private LocalService(String serviceName, Class<?> implClass, Object instance, Constructor<?> constructor,
+                         InvokerGenerator invokerGenerator) {
+        this.serviceName = serviceName;
+        this.implClass = implClass;
+        this.instance = instance;
+        this.constructor = constructor;
+        Map<String, LocalServiceMethod[]> methodMap = new HashMap<>();
+        Map<String, LocalServiceMethod> signatureMap = new LinkedHashMap<>();
+        Map<Integer, LocalServiceMethod> methodIdMap = new HashMap<>();
+        Method[] methods = implClass.getMethods();
+        //按签名排序，保证方法表顺序稳定
+        Arrays.sort(methods, Comparator.comparing((Method method) -> LocalServiceMethod.getSignature(method.getName(), method.getParameterTypes())));
+        for (Method method : methods) {
+            if (method.getDeclaringClass() == Object.class || method.isBridge()) {
+                continue;
+            }
+            LocalServiceMethod serviceMethod = new LocalServiceMethod(method, invokerGenerator);
+            signatureMap.put(serviceMethod.getSignature(), serviceMethod);
+            methodIdMap.put(serviceMethod.getMethodId(), serviceMethod);
+            methodMap.merge(method.getName(), new LocalServiceMethod[]{serviceMethod}, (oldValue, value) -> {
+                LocalServiceMethod[] merged = Arrays.copyOf(oldValue, oldValue.length + 1);
+                merged[oldValue.length] = serviceMethod;
+                return merged;
+            });
+        }
+        this.methodMap = methodMap;
+        this.signatureMap = Collections.unmodifiableMap(signatureMap);
+        this.methodIdMap = methodIdMap;
+    }
+
+    /**
+     * 按作用域创建本地服务
+     */
+    public static LocalService of(String serviceName, Class<?> implClass, String scope,
+                                  InvokerGenerator invokerGenerator) {
+        try {
+            Constructor<?> constructor = implClass.getDeclaredConstructor();
+            constructor.trySetAccessible();
+            if (ServiceScopeConstant.PROTOTYPE.equals(scope)) {
+                return new LocalService(serviceName, implClass, null, constructor, invokerGenerator);
+            }
+            return new LocalService(serviceName, implClass, constructor.newInstance(), null, invokerGenerator);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(String.format("%s 服务实例化失败", implClass.getName()), e);
+        }
+    }
+
+    /**
+     * 使用已有实例创建本地服务（例如 Spring Bean）
+     */
+    public static LocalService of(String serviceName, Object instance, InvokerGenerator invokerGenerator) {
+        return new LocalService(serviceName, instance.getClass(), instance, null, invokerGenerator);
+    }
+
+    /**
+     * 获取服务实例
+     */
+    public Object getInstance() throws ReflectiveOperationException {
+        if (instance != null) {
+            return instance;
+        }
+        return constructor.newInstance();
+    }
+
+    /**
+     * 按方法名和参数类型查找方法，不存在返回 null
+     */
+    public LocalServiceMethod getMethod(String methodName, Class<?>[] parameterTypes) {
+        LocalServiceMethod[] candidates = methodMap.get(methodName);
+        if (candidates == null) {
+            return null;
+        }
+        for (LocalServiceMethod candidate : candidates) {
+            if (candidate.matches(parameterTypes)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按方法ID查找方法，不存在返回 null
+     */
+    public LocalServiceMethod getMethod(int methodId) {
+        return methodIdMap.get(methodId);
+    }
+}
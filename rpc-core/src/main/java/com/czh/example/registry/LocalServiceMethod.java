@@ -0,0 +1,121 @@
+package com.czh.example.registry;
+
+import com.czh.example.invoker.InvokerGenerator;
+import com.czh.example.invoker.MethodInvoker;
+import com.czh.example.server.tcp.StreamSource;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 本地服务方法（注册时解析，请求时直接使用）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/16 9:40
+ */
+@Getter
+public class LocalServiceMethod {
+
+    /**
+     * 方法ID生成器，进程内唯一
+     */
+    private static final AtomicInteger METHOD_ID_GENERATOR = new AtomicInteger(0);
+
+    /**
+     * 方法ID，握手时告知服务消费者，请求中代替服务名、方法名和参数类型
+     */
+    private final int methodId;
+
+    /**
+     * 服务方法
+     */
+    private final Method method;
+
+    /**
+     * 参数类型列表
+     */
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 返回值类型
+     */
+    private final Class<?> returnType;
+
+    /**
+     * 是否服务端流方法（返回 Iterator、Stream 或 StreamSource），结果按元素逐个发送
+     */
+    private final boolean stream;
+
+    /**
+     * 客户端流参数（StreamSource 类型）的下标，没有为 -1
+     */
+    private final int streamParamIndex;
+
+    /**
+     * 方法签名，例如 getUser(com.czh.example.model.User)
+     */
+    private final String signature;
+
+    /**
+     * 方法调用器（注册时生成）
+     */
+    private final MethodInvoker invoker;
+
+    public LocalServiceMethod(Method method, InvokerGenerator invokerGenerator) {
+        //跳过访问检查
+        method.trySetAccessible();
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.returnType = method.getReturnType();
+        this.stream = isStream(returnType);
+        this.streamParamIndex = getStreamParamIndex(parameterTypes);
+        this.signature = getSignature(method.getName(), parameterTypes);
+        this.invoker = invokerGenerator.generate(method);
+        this.methodId = METHOD_ID_GENERATOR.incrementAndGet();
+    }
+
+    /**
+     * 判断参数类型是否匹配
+     */
+    public boolean matches(Class<?>[] parameterTypes) {
+        if (parameterTypes == null) {
+            return this.parameterTypes.length == 0;
+        }
+        return Arrays.equals(this.parameterTypes, parameterTypes);
+    }
+
+    /**
+     * 判断返回值类型是否为流
+     */
+    public static boolean isStream(Class<?> returnType) {
+        return Iterator.class.equals(returnType) || java.util.stream.Stream.class.equals(returnType)
+                || StreamSource.class.equals(returnType);
+    }
+
+    /**
+     * 查找客户端流参数的下标，只支持一个
+     */
+    public static int getStreamParamIndex(Class<?>[] parameterTypes) {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (StreamSource.class.equals(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 生成方法签名
+     */
+    public static String getSignature(String methodName, Class<?>[] parameterTypes) {
+        String parameters = parameterTypes == null ? "" : Arrays.stream(parameterTypes)
+                .map(Class::getName)
+                .collect(Collectors.joining(","));
+        return methodName + "(" + parameters + ")";
+    }
+}
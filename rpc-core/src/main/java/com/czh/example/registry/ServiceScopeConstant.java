@@ -0,0 +1,21 @@
+package com.czh.example.registry;
+
+/**
+ * 服务实例作用域常量
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/16 9:30
+ */
+public interface ServiceScopeConstant {
+
+    /**
+     * 单例：注册时创建一个实例，所有请求共享
+     */
+    String SINGLETON = "singleton";
+
+    /**
+     * 原型：每次请求创建新实例
+     */
+    String PROTOTYPE = "prototype";
+}
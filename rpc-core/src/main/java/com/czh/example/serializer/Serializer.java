@@ -1,6 +1,8 @@
 package com.czh.example.serializer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * @author czh
@@ -23,6 +25,19 @@ public interface Serializer {
      */
     <T> byte[] serialize(T object) throws IOException;
 
+    /**
+     * 序列化到输出流
+     * 协议编码时输出流直接写入发送缓冲区，序列化器应重写该方法，避免先生成字节数组再复制
+     *
+     * @param object
+     * @param outputStream
+     * @param <T>
+     * @throws IOException
+     */
+    default <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        outputStream.write(serialize(object));
+    }
+
     /**
      * 反序列化
      *
@@ -33,4 +48,31 @@ public interface Serializer {
      * @throws IOException
      */
     <T> T deserialize(byte[] bytes, Class<T> type) throws IOException;
+
+    /**
+     * 从输入流反序列化
+     * 协议解码时输入流直接读取接收缓冲区的切片，序列化器应重写该方法直接读取流，避免复制消息体
+     *
+     * @param inputStream
+     * @param type
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    default <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
+        return deserialize(inputStream.readAllBytes(), type);
+    }
+
+    /**
+     * 按参数类型转换反序列化得到的参数
+     * 使用方法ID的请求不携带参数类型，服务提供者查到方法后再调用；默认参数已是原始类型，无需转换
+     *
+     * @param args
+     * @param parameterTypes
+     * @return
+     * @throws IOException
+     */
+    default Object[] convertArgs(Object[] args, Class<?>[] parameterTypes) throws IOException {
+        return args;
+    }
 }
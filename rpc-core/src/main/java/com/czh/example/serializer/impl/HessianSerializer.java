@@ -8,6 +8,8 @@ import com.czh.example.serializer.Serializer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * @author czh
@@ -18,16 +20,24 @@ public class HessianSerializer implements Serializer {
     @Override
     public <T> byte[] serialize(T object) throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        HessianOutput ho = new HessianOutput(bos);
-        ho.writeObject(object);
-//        ho.close();
+        serialize(object, bos);
         return bos.toByteArray();
     }
 
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        HessianOutput ho = new HessianOutput(outputStream);
+        ho.writeObject(object);
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
-        ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
-        HessianInput hi = new HessianInput(bis);
+        return deserialize(new ByteArrayInputStream(bytes), type);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
+        HessianInput hi = new HessianInput(inputStream);
 //        hi.close();
         return (T) hi.readObject(type);
 
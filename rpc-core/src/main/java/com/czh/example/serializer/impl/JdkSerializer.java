@@ -39,10 +39,18 @@ public class JdkSerializer implements Serializer {
     @Override
     public <T> byte[] serialize(T object) throws IOException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serialize(object, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 序列化到输出流
+     */
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
         ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
         objectOutputStream.writeObject(object);
         objectOutputStream.close();
-        return outputStream.toByteArray();
     }
 
     /**
@@ -56,7 +64,14 @@ public class JdkSerializer implements Serializer {
      */
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        return deserialize(new ByteArrayInputStream(bytes), type);
+    }
+
+    /**
+     * 从输入流反序列化
+     */
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
         ObjectInputStream objectInputStream = new ObjectInputStream(inputStream);
         try {
             return (T) objectInputStream.readObject();
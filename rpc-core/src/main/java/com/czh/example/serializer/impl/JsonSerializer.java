@@ -5,11 +5,15 @@ import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.json.JSONUtil;
 import com.czh.example.model.RpcRequest;
 import com.czh.example.model.RpcResponse;
+import com.czh.example.model.StreamMessage;
 import com.czh.example.serializer.Serializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * JSON  序列化器
@@ -20,23 +24,43 @@ import java.io.IOException;
  */
 public class JsonSerializer implements Serializer {
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /**
+     * 不输出 null 字段，使用方法ID的请求不再写出空的服务名、方法名和参数类型
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
     @Override
     public <T> byte[] serialize(T object) throws IOException {
         return OBJECT_MAPPER.writeValueAsBytes(object);
     }
 
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        OBJECT_MAPPER.writeValue(outputStream, object);
+    }
+
 
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
-        T object = OBJECT_MAPPER.readValue(bytes, type);
+        return handle(OBJECT_MAPPER.readValue(bytes, type), type);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
+        return handle(OBJECT_MAPPER.readValue(inputStream, type), type);
+    }
+
+    private <T> T handle(T object, Class<T> type) throws IOException {
         if (object instanceof RpcRequest) {
             return handleRequest((RpcRequest) object, type);
         }
         if (object instanceof RpcResponse) {
             return handleResponse((RpcResponse) object, type);
         }
+        if (object instanceof StreamMessage) {
+            return handleStreamMessage((StreamMessage) object, type);
+        }
         return object;
     }
 
@@ -45,24 +69,47 @@ public class JsonSerializer implements Serializer {
      * Object 的原始对象会被擦除导致反序列化时会被作为LinkedHashMap，无法转化为原始对象
      */
     private <T> T handleRequest(RpcRequest rpcRequest, Class<T> type) throws IOException {
-        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
-        Object[] args = rpcRequest.getArgs();
+        //使用方法ID的请求不携带参数类型，由服务提供者查到方法后调用 convertArgs
+        if (rpcRequest.getParameterTypes() != null) {
+            convertArgs(rpcRequest.getArgs(), rpcRequest.getParameterTypes());
+        }
+        return type.cast(rpcRequest);
+    }
 
+    @Override
+    public Object[] convertArgs(Object[] args, Class<?>[] parameterTypes) throws IOException {
+        if (args == null) {
+            return null;
+        }
 //        循环处理参数类型
         for (int i = 0; i < parameterTypes.length; i++) {
             Class<?> clazz = parameterTypes[i];
             //类型不同重新处理
-            if (!clazz.isAssignableFrom(args[i].getClass())) {
+            if (args[i] != null && !clazz.isAssignableFrom(args[i].getClass())) {
                 byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(args[i]);
                 args[i] = OBJECT_MAPPER.readValue(bytes, clazz);
             }
         }
-        return type.cast(rpcRequest);
+        return args;
     }
 
     private <T> T handleResponse(RpcResponse rpcResponse, Class<T> type) throws IOException {
+        //异常响应或空返回值没有数据类型，无需转化
+        if (rpcResponse.getData() == null || rpcResponse.getDataType() == null) {
+            return type.cast(rpcResponse);
+        }
         byte[] dataBytes = OBJECT_MAPPER.writeValueAsBytes(rpcResponse.getData());
         rpcResponse.setData(OBJECT_MAPPER.readValue(dataBytes, rpcResponse.getDataType()));
         return type.cast(rpcResponse);
     }
+
+    private <T> T handleStreamMessage(StreamMessage streamMessage, Class<T> type) throws IOException {
+        //流元素按元素类型转化
+        if (streamMessage.getData() != null && streamMessage.getDataType() != null
+                && !streamMessage.getDataType().isInstance(streamMessage.getData())) {
+            byte[] dataBytes = OBJECT_MAPPER.writeValueAsBytes(streamMessage.getData());
+            streamMessage.setData(OBJECT_MAPPER.readValue(dataBytes, streamMessage.getDataType()));
+        }
+        return type.cast(streamMessage);
+    }
 }
@@ -4,13 +4,16 @@ import com.czh.example.serializer.Serializer;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Kryo 序列化器
- * kryo 线程不安全，是哦那个Threadlocal保证每个线程只有一个kryo
+ * kryo 线程不安全，使用对象池复用Kryo，用完归还
  *
  * @author czh
  * @version 1.0.0
@@ -19,30 +22,52 @@ import java.io.ByteArrayOutputStream;
 public class KryoSerializer implements Serializer {
 
     /**
-     * kryo线程不安全，使用ThreadLocal保证每个线程只有一个Kryo
+     * Kryo 对象池（线程安全）
+     * 不使用 ThreadLocal：虚拟线程数量可达数万，每个线程一个 Kryo 会占用大量内存
      */
-    private static final ThreadLocal<Kryo> KRYO_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
-        Kryo kryo = new Kryo();
+    private static final Pool<Kryo> KRYO_POOL = new Pool<Kryo>(true, false, 64) {
+        @Override
+        protected Kryo create() {
+            Kryo kryo = new Kryo();
 //        设置动态序列化和反序列化类，不提前注册所有类（可能又安全问题）
-        kryo.setRegistrationRequired(false);
-        return kryo;
-    });
+            kryo.setRegistrationRequired(false);
+            return kryo;
+        }
+    };
 
     @Override
     public <T> byte[] serialize(T object) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        Output output = new Output(byteArrayOutputStream);
-        KRYO_THREAD_LOCAL.get().writeObject(output, object);
-        output.close();
+        serialize(object, byteArrayOutputStream);
         return byteArrayOutputStream.toByteArray();
     }
 
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) {
+        Output output = new Output(outputStream);
+        Kryo kryo = KRYO_POOL.obtain();
+        try {
+            kryo.writeObject(output, object);
+        } finally {
+            KRYO_POOL.free(kryo);
+        }
+        output.close();
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        Input input = new Input(byteArrayInputStream);
-        T result = KRYO_THREAD_LOCAL.get().readObject(input, type);
-        input.close();
-        return result;
+        return deserialize(new ByteArrayInputStream(bytes), type);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> type) {
+        Input input = new Input(inputStream);
+        Kryo kryo = KRYO_POOL.obtain();
+        try {
+            return kryo.readObject(input, type);
+        } finally {
+            KRYO_POOL.free(kryo);
+            input.close();
+        }
     }
 }
@@ -5,6 +5,8 @@ import com.czh.example.application.RpcApplication;
 import com.czh.example.model.RpcRequest;
 import com.czh.example.model.RpcResponse;
 import com.czh.example.registry.LocalRegistry;
+import com.czh.example.registry.LocalService;
+import com.czh.example.registry.LocalServiceMethod;
 import com.czh.example.serializer.Serializer;
 import com.czh.example.factory.SerializerFactory;
 import io.vertx.core.Handler;
@@ -13,7 +15,6 @@ import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 
 /**
  * HTTP 请求处理
@@ -55,18 +56,24 @@ public class HttpServerHandler implements Handler<HttpServerRequest> {
             }
 
             try {
-//              获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.getDeclaredConstructor().newInstance(), rpcRequest.getArgs());
+//              获取注册时解析好的服务实例和方法，通过生成的调用器调用
+                LocalService localService = LocalRegistry.getService(rpcRequest.getServiceName());
+                if (localService == null) {
+                    throw new RuntimeException("服务不存在：" + rpcRequest.getServiceName());
+                }
+                LocalServiceMethod serviceMethod = localService.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+                if (serviceMethod == null) {
+                    throw new RuntimeException("服务方法不存在：" + rpcRequest.getMethodName());
+                }
+                Object result = serviceMethod.getInvoker().invoke(localService.getInstance(), rpcRequest.getArgs());
 //                封装返回结果
                 rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
+                rpcResponse.setDataType(serviceMethod.getReturnType());
                 rpcResponse.setMessage("调用成功！！！");
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 e.printStackTrace();
                 rpcResponse.setMessage(e.getMessage());
-                rpcResponse.setException(e);
+                rpcResponse.setException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
             }
 //            响应
             doResponse(request, rpcResponse, serializer);
@@ -0,0 +1,197 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.protocol.*;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 连接心跳和空闲检测（服务消费者和服务提供者共用）
+ * 定时检查连接的读写情况：
+ * 1. 一个心跳周期内没有收到任何消息，发送心跳（ping），对端收到后回复（pong）
+ * 2. 连续 missLimit 个心跳周期没有收到任何消息，认为对端已失效，关闭连接
+ * 3. 超过空闲时间没有业务消息且没有进行中的请求，关闭连接（需要时重新建立）
+ * 心跳只在握手确认对端支持后启用，旧版本对端不回复心跳，只做空闲检测
+ * 心跳和回复通过连接的写入目标（写队列）发送，与业务消息一起合并写入并受写入水位控制
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/25 9:30
+ */
+@Slf4j
+public class ConnectionHeartbeat {
+
+    /**
+     * 心跳请求的状态，回复使用 OK
+     */
+    public static final byte PING = 0;
+
+    /**
+     * 心跳的写入目标
+     */
+    private final FrameWriter writer;
+
+    /**
+     * 关闭连接
+     */
+    private final Runnable closer;
+
+    /**
+     * 对端地址（日志使用）
+     */
+    private final Object remoteAddress;
+
+    /**
+     * 心跳周期（单位毫秒），0 表示不发送心跳
+     */
+    private final long interval;
+
+    private final int missLimit;
+
+    /**
+     * 空闲时间（单位毫秒），0 表示不关闭空闲连接
+     */
+    private final long idleTimeout;
+
+    /**
+     * 是否有进行中的请求或流，有则不算空闲
+     */
+    private final BooleanSupplier busy;
+
+    /**
+     * 对端失效时的回调
+     */
+    private final Runnable deadHandler;
+
+    /**
+     * 当前时间（单位毫秒）
+     */
+    private final LongSupplier clock;
+
+    private volatile boolean heartbeatEnabled;
+
+    private volatile long lastReadTime;
+
+    private volatile long lastActiveTime;
+
+    private long timerId = -1;
+
+    private Vertx vertx;
+
+    /**
+     * @param writer 连接的写入目标（写队列），心跳和回复通过它发送
+     */
+    public ConnectionHeartbeat(NetSocket socket, FrameWriter writer, long interval, int missLimit, long idleTimeout,
+                               BooleanSupplier busy, Runnable deadHandler) {
+        this(writer, socket::close, socket.remoteAddress(), interval, missLimit, idleTimeout, busy, deadHandler,
+                System::currentTimeMillis);
+    }
+
+    ConnectionHeartbeat(FrameWriter writer, Runnable closer, Object remoteAddress, long interval, int missLimit,
+                        long idleTimeout, BooleanSupplier busy, Runnable deadHandler, LongSupplier clock) {
+        this.writer = writer;
+        this.closer = closer;
+        this.remoteAddress = remoteAddress;
+        this.interval = interval;
+        this.missLimit = Math.max(1, missLimit);
+        this.idleTimeout = idleTimeout;
+        this.busy = busy;
+        this.deadHandler = deadHandler;
+        this.clock = clock;
+        this.lastReadTime = clock.getAsLong();
+        this.lastActiveTime = lastReadTime;
+    }
+
+    /**
+     * 启动定时检查，在连接所属的上下文执行
+     */
+    public void start(Vertx vertx) {
+        long period = interval > 0 ? interval : idleTimeout;
+        if (period <= 0) {
+            return;
+        }
+        this.vertx = vertx;
+        timerId = vertx.setPeriodic(period, id -> check());
+    }
+
+    public void stop() {
+        if (vertx != null && timerId >= 0) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /**
+     * 对端支持心跳（握手确认）后启用
+     */
+    public void enableHeartbeat() {
+        heartbeatEnabled = interval > 0;
+    }
+
+    /**
+     * 收到消息
+     *
+     * @param heartbeat 是否心跳消息，心跳不刷新空闲时间
+     */
+    public void onRead(boolean heartbeat) {
+        long now = clock.getAsLong();
+        lastReadTime = now;
+        if (!heartbeat) {
+            lastActiveTime = now;
+        }
+    }
+
+    /**
+     * 发送业务消息
+     */
+    public void onActive() {
+        lastActiveTime = clock.getAsLong();
+    }
+
+    /**
+     * 定时检查（连接所属的上下文）
+     */
+    void check() {
+        long now = clock.getAsLong();
+        if (heartbeatEnabled && now - lastReadTime >= interval * missLimit) {
+            log.warn("连续 {} 个心跳周期未收到消息，关闭连接 {}", missLimit, remoteAddress);
+            stop();
+            deadHandler.run();
+            closer.run();
+            return;
+        }
+        if (idleTimeout > 0 && now - lastActiveTime >= idleTimeout && !busy.getAsBoolean()) {
+            log.info("连接空闲超过 {} 毫秒，关闭连接 {}", idleTimeout, remoteAddress);
+            stop();
+            closer.run();
+            return;
+        }
+        if (heartbeatEnabled && now - lastReadTime >= interval) {
+            writeHeartbeat(writer, 0L, PING);
+        }
+    }
+
+    /**
+     * 发送心跳消息，status 为 PING 表示心跳请求，OK 表示回复
+     *
+     * @param writer 连接的写入目标（写队列）
+     */
+    public static void writeHeartbeat(FrameWriter writer, long requestId, byte status) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.HEART_BEAT.getKey());
+        header.setStatus(status);
+        header.setRequestId(requestId);
+        try {
+            ProtocolMessageEncoder.write(writer, new ProtocolMessage<>(header, null));
+        } catch (IOException e) {
+            log.warn("心跳消息编码错误", e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.StreamMessage;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收方向的流（服务消费者接收服务端流，服务提供者接收客户端流）
+ * 以迭代器的形式读取对端发送的元素，基于额度的流量控制：
+ * 开始时授予 window 个额度，每消费一半窗口的元素再补充相应额度，对端没有额度时暂停发送，
+ * 因此缓存的元素不超过 window 个
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/23 10:00
+ */
+public class InboundStream<T> implements StreamSource<T> {
+
+    /**
+     * 流结束标记
+     */
+    private static final Object END = new Object();
+
+    /**
+     * 空元素占位（队列不能存放 null）
+     */
+    private static final Object NULL = new Object();
+
+    private final StreamTransport transport;
+
+    private final long requestId;
+
+    private final int window;
+
+    /**
+     * 等待下一个元素的超时时间（单位毫秒），不大于 0 时一直等待
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 已接收未消费的元素，由额度保证不超过 window 个
+     */
+    private final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 已预取的下一个元素
+     */
+    private Object next;
+
+    /**
+     * 上次补充额度后消费的元素个数
+     */
+    private int consumed;
+
+    private volatile Throwable error;
+
+    private volatile boolean finished;
+
+    InboundStream(StreamTransport transport, long requestId, int window, long timeoutMillis) {
+        this.transport = transport;
+        this.requestId = requestId;
+        this.window = Math.max(1, window);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * 初始额度
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = timeoutMillis > 0 ? queue.poll(timeoutMillis, TimeUnit.MILLISECONDS) : queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("读取流被中断", e);
+            }
+            if (next == null) {
+                close();
+                throw new RuntimeException("读取流超时 requestId = " + requestId);
+            }
+        }
+        if (next == END) {
+            if (error != null) {
+                throw error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object element = next;
+        next = null;
+        //消费了一半窗口，补充额度
+        if (++consumed >= (window + 1) / 2 && !finished) {
+            transport.writeStreamMessage(requestId, ProtocolMessageTypeEnum.STREAM_CREDIT, StreamMessage.credit(consumed));
+            consumed = 0;
+        }
+        return unwrap(element);
+    }
+
+    /**
+     * 还原队列中的元素（空元素以 NULL 占位），队列中只放入本流的元素类型
+     */
+    @SuppressWarnings("unchecked")
+    private T unwrap(Object element) {
+        return element == NULL ? null : (T) element;
+    }
+
+    /**
+     * 收到元素（I/O 线程）
+     */
+    void onData(StreamMessage streamMessage) {
+        queue.offer(streamMessage.getData() == null ? NULL : streamMessage.getData());
+    }
+
+    /**
+     * 流结束（I/O 线程），e 不为空表示异常结束
+     */
+    void onEnd(Throwable e) {
+        if (finished) {
+            return;
+        }
+        error = e;
+        finished = true;
+        queue.offer(END);
+    }
+
+    /**
+     * 关闭流，未结束时通知对端停止发送
+     */
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        queue.offer(END);
+        transport.removeInbound(requestId);
+        transport.writeStreamMessage(requestId, ProtocolMessageTypeEnum.STREAM_END, StreamMessage.cancel());
+    }
+}
@@ -0,0 +1,127 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.StreamMessage;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 发送方向的流（服务消费者向服务提供者发送客户端流）
+ * 每写入一个元素消耗一个额度，没有额度时阻塞，直到服务提供者消费后发来 STREAM_CREDIT
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/24 10:00
+ */
+public class OutboundStream<T> implements StreamSink<T> {
+
+    private final StreamTransport transport;
+
+    private final long requestId;
+
+    /**
+     * 等待额度的超时时间（单位毫秒），不大于 0 时一直等待
+     */
+    private final long timeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition creditAvailable = lock.newCondition();
+
+    /**
+     * 剩余发送额度
+     */
+    private long credit;
+
+    private boolean closed;
+
+    /**
+     * 服务提供者取消的原因
+     */
+    private Throwable cancelCause;
+
+    OutboundStream(StreamTransport transport, long requestId, long timeoutMillis) {
+        this.transport = transport;
+        this.requestId = requestId;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void write(T data) {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (credit <= 0 && !closed) {
+                if (timeoutMillis <= 0) {
+                    creditAvailable.await();
+                } else if ((nanos = creditAvailable.awaitNanos(nanos)) <= 0) {
+                    throw new RuntimeException("写入流超时 requestId = " + requestId);
+                }
+            }
+            if (closed) {
+                throw new RuntimeException("流已关闭 requestId = " + requestId, cancelCause);
+            }
+            credit--;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("写入流被中断", e);
+        } finally {
+            lock.unlock();
+        }
+        transport.writeStreamMessage(requestId, ProtocolMessageTypeEnum.STREAM_DATA, StreamMessage.data(data));
+    }
+
+    @Override
+    public void complete() {
+        end(null);
+    }
+
+    @Override
+    public void error(Throwable e) {
+        end(e);
+    }
+
+    private void end(Throwable e) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            creditAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        transport.removeOutbound(requestId);
+        transport.writeStreamMessage(requestId, ProtocolMessageTypeEnum.STREAM_END, StreamMessage.end(e));
+    }
+
+    /**
+     * 收到服务提供者授予的额度（I/O 线程）
+     */
+    void addCredit(int n) {
+        lock.lock();
+        try {
+            credit += n;
+            creditAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 服务提供者不再接收（取消、调用结束或连接关闭），之后的写入失败
+     */
+    void cancel(Throwable cause) {
+        lock.lock();
+        try {
+            closed = true;
+            cancelCause = cause;
+            creditAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.RpcResponse;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在途请求登记表（服务消费者）
+ * requestId -> 等待响应的 Future，每个请求都带有截止时间，
+ * 超时由哈希时间轮统一处理，避免每次调用都创建一个定时任务
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/12 15:10
+ */
+@Slf4j
+public class PendingRequestRegistry {
+
+    /**
+     * 时间轮：刻度 10 毫秒，512 个槽位
+     */
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer(runnable -> {
+        Thread thread = new Thread(runnable, "rpc-request-timeout");
+        thread.setDaemon(true);
+        return thread;
+    }, 10, TimeUnit.MILLISECONDS, 512);
+
+    /**
+     * 在途请求
+     */
+    private static final Map<Long, PendingRequest> PENDING_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 累计超时请求数
+     */
+    private static final LongAdder TIMEOUT_COUNT = new LongAdder();
+
+    /**
+     * 登记请求，超过 timeoutMillis 未收到响应则以 TimeoutException 结束，不大于 0 时不超时（客户端流调用）
+     */
+    public static CompletableFuture<RpcResponse> register(long requestId, long timeoutMillis) {
+        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+        PendingRequest pendingRequest = new PendingRequest(responseFuture);
+        PENDING_MAP.put(requestId, pendingRequest);
+        if (timeoutMillis > 0) {
+            pendingRequest.timeout = TIMER.newTimeout(timeout -> expire(requestId), timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return responseFuture;
+    }
+
+    /**
+     * 收到响应，完成对应请求
+     *
+     * @return 请求是否仍在等待（已超时或未知请求返回 false）
+     */
+    public static boolean complete(long requestId, RpcResponse rpcResponse) {
+        PendingRequest pendingRequest = PENDING_MAP.remove(requestId);
+        if (pendingRequest == null) {
+            return false;
+        }
+        pendingRequest.cancelTimeout();
+        return pendingRequest.future.complete(rpcResponse);
+    }
+
+    /**
+     * 请求失败（发送失败、连接断开等）
+     */
+    public static void fail(long requestId, Throwable cause) {
+        PendingRequest pendingRequest = PENDING_MAP.remove(requestId);
+        if (pendingRequest != null) {
+            pendingRequest.cancelTimeout();
+            pendingRequest.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 调用方取消的请求，移除登记并停止计时
+     */
+    public static void remove(long requestId) {
+        PendingRequest pendingRequest = PENDING_MAP.remove(requestId);
+        if (pendingRequest != null) {
+            pendingRequest.cancelTimeout();
+        }
+    }
+
+    private static void expire(long requestId) {
+        PendingRequest pendingRequest = PENDING_MAP.remove(requestId);
+        if (pendingRequest != null) {
+            TIMEOUT_COUNT.increment();
+            log.warn("请求超时 requestId = {}", requestId);
+            pendingRequest.future.completeExceptionally(new TimeoutException("请求超时 requestId = " + requestId));
+        }
+    }
+
+    /**
+     * 当前在途请求数
+     */
+    public static int getPendingCount() {
+        return PENDING_MAP.size();
+    }
+
+    /**
+     * 累计超时请求数
+     */
+    public static long getTimeoutCount() {
+        return TIMEOUT_COUNT.sum();
+    }
+
+    private static class PendingRequest {
+
+        private final CompletableFuture<RpcResponse> future;
+
+        private volatile Timeout timeout;
+
+        private PendingRequest(CompletableFuture<RpcResponse> future) {
+            this.future = future;
+        }
+
+        private void cancelTimeout() {
+            Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
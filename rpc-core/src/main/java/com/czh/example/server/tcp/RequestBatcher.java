@@ -0,0 +1,114 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.RpcRequest;
+import com.czh.example.protocol.FrameWriter;
+import com.czh.example.protocol.ProtocolMessage;
+import com.czh.example.protocol.ProtocolMessageEncoder;
+import com.czh.example.utils.Histogram;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 请求批量发送（服务消费者，每个连接一个）
+ * 短时间内发往同一连接的请求先放入队列，在连接所属的 I/O 上下文中合并为 BATCH 消息一次写入：
+ * 延迟为 0 时在下一轮事件循环发送，否则等待延迟时间；队列达到批量大小时立即发送
+ * 服务提供者拆开批量消息逐个处理，响应仍按 requestId 单独返回
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 16:40
+ */
+public class RequestBatcher {
+
+    /**
+     * 每次发送的批量大小分布（所有连接）
+     */
+    private static final Histogram BATCH_SIZE_HISTOGRAM = new Histogram();
+
+    private final FrameWriter writer;
+
+    private final Context context;
+
+    private final int maxSize;
+
+    private final long delayMillis;
+
+    /**
+     * 写入失败的回调：requestId、失败原因
+     */
+    private final BiConsumer<Long, Throwable> failureHandler;
+
+    private final Queue<ProtocolMessage<RpcRequest>> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /**
+     * 是否已安排发送
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public RequestBatcher(FrameWriter writer, Context context, int maxSize, long delayMillis,
+                          BiConsumer<Long, Throwable> failureHandler) {
+        this.writer = writer;
+        this.context = context;
+        this.maxSize = Math.max(1, maxSize);
+        this.delayMillis = delayMillis;
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * 加入队列（可以在任意线程调用）
+     */
+    public void add(ProtocolMessage<RpcRequest> protocolMessage) {
+        queue.offer(protocolMessage);
+        if (queueSize.incrementAndGet() >= maxSize) {
+            // 达到批量大小，不再等待延迟
+            context.runOnContext(v -> flush());
+        } else if (scheduled.compareAndSet(false, true)) {
+            if (delayMillis > 0) {
+                context.owner().setTimer(delayMillis, id -> flush());
+            } else {
+                context.runOnContext(v -> flush());
+            }
+        }
+    }
+
+    /**
+     * 发送队列中的请求，每批不超过批量大小（I/O 线程）
+     */
+    private void flush() {
+        scheduled.set(false);
+        while (!queue.isEmpty()) {
+            List<ProtocolMessage<RpcRequest>> batch = new ArrayList<>(Math.min(maxSize, queueSize.get()));
+            ProtocolMessage<RpcRequest> protocolMessage;
+            while (batch.size() < maxSize && (protocolMessage = queue.poll()) != null) {
+                batch.add(protocolMessage);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            queueSize.addAndGet(-batch.size());
+            BATCH_SIZE_HISTOGRAM.record(batch.size());
+            List<Future<Void>> results = ProtocolMessageEncoder.writeBatch(writer, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                long requestId = batch.get(i).getHeader().getRequestId();
+                results.get(i).onFailure(e -> failureHandler.accept(requestId, e));
+            }
+        }
+    }
+
+    /**
+     * 每次发送的批量大小分布
+     */
+    public static Histogram getBatchSizeHistogram() {
+        return BATCH_SIZE_HISTOGRAM;
+    }
+}
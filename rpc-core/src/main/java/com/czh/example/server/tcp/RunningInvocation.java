@@ -0,0 +1,118 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.limiter.AdaptiveConcurrencyLimiter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 正在处理的请求（服务提供者）
+ * 收到请求时登记，服务消费者发来 CANCEL 后标记取消：
+ * 还在排队的请求不再执行；正在执行的请求中断执行线程（可配置），异步方法取消返回的 CompletableFuture；
+ * 已取消的请求不再响应
+ * 开启自适应并发限制时持有服务的并发许可，请求结束（完成、丢弃或取消）时释放一次
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 14:10
+ */
+public class RunningInvocation {
+
+    private boolean cancelled;
+
+    /**
+     * 执行线程，未开始或已结束时为空
+     */
+    private Thread thread;
+
+    /**
+     * 异步方法返回的结果
+     */
+    private CompletableFuture<?> future;
+
+    /**
+     * 持有许可的并发限制，没有为空
+     */
+    private AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * 收到请求的时间（System.nanoTime）
+     */
+    private final long receivedAt;
+
+    public RunningInvocation() {
+        this(null, System.nanoTime());
+    }
+
+    public RunningInvocation(AdaptiveConcurrencyLimiter limiter, long receivedAt) {
+        this.limiter = limiter;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * 开始执行，已取消返回 false
+     */
+    public synchronized boolean start() {
+        if (cancelled) {
+            return false;
+        }
+        thread = Thread.currentThread();
+        return true;
+    }
+
+    /**
+     * 执行结束，清除取消时设置的中断标记，避免影响线程池中的下一个任务
+     */
+    public synchronized void finish() {
+        if (thread == Thread.currentThread()) {
+            thread = null;
+            if (cancelled) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * 登记异步方法的结果，已取消时立即取消
+     */
+    public synchronized void setFuture(CompletableFuture<?> future) {
+        this.future = future;
+        if (cancelled) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 取消
+     *
+     * @param interrupt 是否中断正在执行的线程
+     */
+    public synchronized void cancel(boolean interrupt) {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (interrupt && thread != null) {
+            thread.interrupt();
+        }
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 释放并发许可，只有第一次调用生效
+     *
+     * @param sample 是否把从收到请求到现在的耗时作为调整并发上限的样本（丢弃、取消和流调用不作为样本）
+     */
+    public synchronized void release(boolean sample) {
+        if (limiter == null) {
+            return;
+        }
+        limiter.release(sample && !cancelled ? System.nanoTime() - receivedAt : -1);
+        limiter = null;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
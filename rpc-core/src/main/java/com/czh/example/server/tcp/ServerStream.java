@@ -0,0 +1,175 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.dispatcher.Dispatcher;
+import com.czh.example.model.StreamMessage;
+import com.czh.example.protocol.ProtocolMessage;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端流（服务提供者发送端）
+ * 服务方法返回的迭代器在分发器线程上逐个读取并发送，每发送一个元素消耗一个额度，
+ * 额度用完时暂停，收到服务消费者的 STREAM_CREDIT 后继续；迭代结束或异常时发送 STREAM_END
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/23 10:30
+ */
+@Slf4j
+public class ServerStream {
+
+    private final TcpServerConnection connection;
+
+    /**
+     * 请求的消息头，流消息沿用其 requestId 和序列化器
+     */
+    private final ProtocolMessage.Header requestHeader;
+
+    private final String serviceName;
+
+    private final Dispatcher dispatcher;
+
+    /**
+     * 剩余发送额度
+     */
+    private final AtomicLong credit = new AtomicLong();
+
+    /**
+     * 是否有线程正在发送，保证同一时刻只有一个线程读取迭代器
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Iterator<?> iterator;
+
+    /**
+     * 服务方法返回 Stream 时，结束后关闭
+     */
+    private volatile AutoCloseable resource;
+
+    private volatile boolean closed;
+
+    public ServerStream(TcpServerConnection connection, ProtocolMessage.Header requestHeader, String serviceName,
+                        Dispatcher dispatcher) {
+        this.connection = connection;
+        this.requestHeader = requestHeader;
+        this.serviceName = serviceName;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 开始发送服务方法的返回值（Iterator 或 Stream）
+     */
+    public void start(Object result) {
+        if (result instanceof java.util.stream.Stream) {
+            java.util.stream.Stream<?> stream = (java.util.stream.Stream<?>) result;
+            resource = stream;
+            iterator = stream.iterator();
+        } else if (result instanceof Iterator) {
+            iterator = (Iterator<?>) result;
+            resource = result instanceof AutoCloseable ? (AutoCloseable) result : null;
+        } else {
+            //返回 null 视为空流
+            finish(null);
+            return;
+        }
+        if (closed) {
+            closeResource();
+            return;
+        }
+        schedule();
+    }
+
+    /**
+     * 收到服务消费者授予的额度（I/O 线程）
+     */
+    public void addCredit(int n) {
+        if (n > 0) {
+            credit.addAndGet(n);
+            schedule();
+        }
+    }
+
+    /**
+     * 服务消费者取消或连接关闭，停止发送
+     */
+    public void cancel() {
+        closed = true;
+        connection.getStreams().remove(requestHeader.getRequestId());
+        connection.closeInbound(requestHeader.getRequestId());
+        //正在发送的线程退出后由它关闭，避免与迭代并发
+        if (iterator != null && running.compareAndSet(false, true)) {
+            closeResource();
+        }
+    }
+
+    private void schedule() {
+        if (!closed && iterator != null && credit.get() > 0 && running.compareAndSet(false, true)) {
+            dispatcher.dispatch(serviceName, this::drain);
+        }
+    }
+
+    /**
+     * 在额度内发送元素，释放发送权后重新检查额度，避免与 addCredit 并发时丢失唤醒
+     */
+    private void drain() {
+        try {
+            while (!closed && credit.get() > 0) {
+                if (!iterator.hasNext()) {
+                    finish(null);
+                    return;
+                }
+                Object data = iterator.next();
+                credit.decrementAndGet();
+                write(ProtocolMessageTypeEnum.STREAM_DATA, StreamMessage.data(data));
+            }
+        } catch (Throwable e) {
+            log.error("服务端流发送失败 requestId = {}", requestHeader.getRequestId(), e);
+            finish(e);
+            return;
+        } finally {
+            if (closed) {
+                closeResource();
+            }
+            running.set(false);
+        }
+        schedule();
+    }
+
+    /**
+     * 发送结束消息，e 不为空表示异常结束
+     */
+    private void finish(Throwable e) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        write(ProtocolMessageTypeEnum.STREAM_END, StreamMessage.end(e));
+        connection.getStreams().remove(requestHeader.getRequestId());
+        //双向流：响应发送完毕，不再读取客户端流
+        connection.closeInbound(requestHeader.getRequestId());
+    }
+
+    private void closeResource() {
+        AutoCloseable resource = this.resource;
+        this.resource = null;
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("关闭服务端流失败 requestId = {}", requestHeader.getRequestId(), e);
+            }
+        }
+    }
+
+    private void write(ProtocolMessageTypeEnum type, StreamMessage streamMessage) {
+        connection.writeStreamMessage(requestHeader.getRequestId(), type, streamMessage);
+    }
+
+    public ProtocolMessage.Header getRequestHeader() {
+        return requestHeader;
+    }
+}
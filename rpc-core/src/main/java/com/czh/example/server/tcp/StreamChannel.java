@@ -0,0 +1,213 @@
+package com.czh.example.server.tcp;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 流通道（服务消费者发起客户端流、双向流调用时使用）
+ * 服务接口方法声明 StreamSource 类型的参数，调用时传入 StreamChannel，之后向通道写入元素：
+ * <pre>
+ * StreamChannel&lt;Record&gt; channel = new StreamChannel&lt;&gt;();
+ * Iterator&lt;Ack&gt; acks = recordService.ingest(channel);
+ * channel.write(record);
+ * channel.complete();
+ * </pre>
+ * 远程调用开始后通道绑定到连接上的发送流，写入受服务提供者的额度限制；
+ * 绑定前（或本地调用时）通道是容量有限的管道，可以在本地读取
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/24 10:30
+ */
+public class StreamChannel<T> implements StreamSink<T>, StreamSource<T> {
+
+    /**
+     * 空元素占位
+     */
+    private static final Object NULL = new Object();
+
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * 绑定前写入的元素
+     */
+    private final ArrayDeque<Object> buffer = new ArrayDeque<>();
+
+    /**
+     * 绑定的发送流，为空表示本地管道
+     */
+    private StreamSink<T> target;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    public StreamChannel() {
+        this(256);
+    }
+
+    public StreamChannel(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public void write(T data) {
+        StreamSink<T> sink;
+        lock.lock();
+        try {
+            while (target == null && buffer.size() >= capacity && !completed) {
+                notFull.await();
+            }
+            if (completed) {
+                throw new RuntimeException("流已结束");
+            }
+            if (target == null) {
+                buffer.add(data == null ? NULL : data);
+                notEmpty.signal();
+                return;
+            }
+            sink = target;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("写入流被中断", e);
+        } finally {
+            lock.unlock();
+        }
+        sink.write(data);
+    }
+
+    @Override
+    public void complete() {
+        end(null);
+    }
+
+    @Override
+    public void error(Throwable e) {
+        end(e);
+    }
+
+    private void end(Throwable e) {
+        StreamSink<T> sink;
+        lock.lock();
+        try {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            error = e;
+            sink = target;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (sink != null) {
+            if (e == null) {
+                sink.complete();
+            } else {
+                sink.error(e);
+            }
+        }
+    }
+
+    /**
+     * 绑定到发送流：先按顺序发送已写入的元素，之后的写入直接发送
+     * 发送已写入元素期间持有锁，保证与之后的写入不乱序
+     */
+    public void bind(StreamSink<T> sink) {
+        lock.lock();
+        try {
+            if (target != null) {
+                throw new RuntimeException("流通道已绑定");
+            }
+            while (!buffer.isEmpty()) {
+                Object element = buffer.poll();
+                sink.write(unwrap(element));
+            }
+            target = sink;
+            notFull.signalAll();
+            if (completed) {
+                if (error == null) {
+                    sink.complete();
+                } else {
+                    sink.error(error);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        lock.lock();
+        try {
+            while (buffer.isEmpty() && !completed && target == null) {
+                notEmpty.await();
+            }
+            if (target != null) {
+                throw new RuntimeException("流通道已绑定到远程调用，不能在本地读取");
+            }
+            if (buffer.isEmpty() && error != null) {
+                throw error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+            }
+            return !buffer.isEmpty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("读取流被中断", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T next() {
+        lock.lock();
+        try {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object element = buffer.poll();
+            notFull.signal();
+            return unwrap(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭通道：已绑定时正常结束发送流，否则本地读取端关闭，之后的写入失败
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (target == null) {
+                completed = true;
+                buffer.clear();
+                notEmpty.signalAll();
+                notFull.signalAll();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        complete();
+    }
+
+    /**
+     * 还原队列中的元素（空元素以 NULL 占位），队列中只放入本流的元素类型
+     */
+    @SuppressWarnings("unchecked")
+    private T unwrap(Object element) {
+        return element == NULL ? null : (T) element;
+    }
+}
@@ -0,0 +1,27 @@
+package com.czh.example.server.tcp;
+
+/**
+ * 流的写入端
+ * 写入时受对端授予的额度限制，没有额度时阻塞等待
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/24 9:35
+ */
+public interface StreamSink<T> {
+
+    /**
+     * 写入一个元素
+     */
+    void write(T data);
+
+    /**
+     * 正常结束
+     */
+    void complete();
+
+    /**
+     * 异常结束
+     */
+    void error(Throwable e);
+}
@@ -0,0 +1,21 @@
+package com.czh.example.server.tcp;
+
+import java.util.Iterator;
+
+/**
+ * 流的读取端
+ * 服务端流、双向流的返回值，以及服务提供者接收客户端流的参数类型；
+ * 读取完毕或不再读取时关闭，未读完时通知对端停止发送
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/24 9:30
+ */
+public interface StreamSource<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * 关闭流
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,30 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.StreamMessage;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+
+/**
+ * 流消息的发送通道（服务消费者和服务提供者的连接）
+ * 同一条连接上的流按 requestId 区分，每个 requestId 最多有一个接收方向的流和一个发送方向的流
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/24 9:40
+ */
+interface StreamTransport {
+
+    /**
+     * 发送流消息
+     */
+    void writeStreamMessage(long requestId, ProtocolMessageTypeEnum type, StreamMessage streamMessage);
+
+    /**
+     * 接收方向的流结束
+     */
+    void removeInbound(long requestId);
+
+    /**
+     * 发送方向的流结束
+     */
+    void removeOutbound(long requestId);
+}
@@ -1,12 +1,27 @@
 package com.czh.example.server.tcp;
 
 import com.czh.example.protocol.ProtocolConstant;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+import com.czh.example.utils.BufferUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.parsetools.RecordParser;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * 装饰者模式（使用recordparser对原有的buffer处理能力进行增强）
+ * 装饰者模式（对原有的buffer处理能力进行增强，按消息头中的长度切分完整消息）
+ * 解决半包、粘包问题，且不复制数据：
+ * 收到的数据块直接加入组合缓冲区，完整的消息（头 + 体）以切片的形式交给处理器，
+ * 处理器需在 handle 返回前完成解码
+ * 分片消息（FRAGMENT）按 requestId 重组：各分片的内容以原数据块切片的形式加入组合缓冲区，
+ * 最后一个分片到达后作为一个完整消息交给处理器（Vert.x 收到的数据块是独立的堆缓冲区，切片可以保留到重组完成）
+ * 批量消息（BATCH）的消息体是多个完整消息，逐个以切片的形式交给处理器
+ * 读到消息头即检查长度，超过上限时不再等待消息体，交给错误处理器（关闭连接）
+ * 重组中的分片消息个数和总长度也有上限，避免对端只发分片不发最后一个分片占满内存
  *
  * @author czh
  * @version 1.0.0
@@ -14,50 +29,182 @@ import io.vertx.core.parsetools.RecordParser;
  */
 public class TcpBufferHandlerWrapper implements Handler<Buffer> {
 
+    private final Handler<Buffer> bufferHandler;
+
+    /**
+     * 单个消息帧的最大长度
+     */
+    private final int maxFrameLength;
+
+    /**
+     * 分片重组后消息的最大长度
+     */
+    private final int maxMessageLength;
+
+    /**
+     * 错误处理器，为空时抛出异常
+     */
+    private final Handler<Throwable> errorHandler;
+
     /**
-     * 解析器，用于解决半包、粘包问题
+     * 未处理的数据（数据块的组合，不合并复制）
      */
-    private final RecordParser recordParser;
+    private CompositeByteBuf cumulation = newCumulation();
+
+    /**
+     * 重组中的分片消息：requestId -> 已收到的内容（I/O 线程访问）
+     */
+    private final Map<Long, CompositeByteBuf> fragments = new HashMap<>();
+
+    /**
+     * 同时重组中的分片消息的最大个数
+     */
+    private static final int MAX_PENDING_FRAGMENTS = 256;
+
+    /**
+     * 重组中的分片消息的总长度，不超过单个消息的最大长度
+     */
+    private long pendingFragmentBytes;
+
+    private boolean failed;
 
     public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler) {
-        recordParser = initRecordParser(bufferHandler);
+        this(bufferHandler, Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+    }
+
+    public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler, int maxFrameLength, int maxMessageLength,
+                                   Handler<Throwable> errorHandler) {
+        this.bufferHandler = bufferHandler;
+        this.maxFrameLength = maxFrameLength;
+        this.maxMessageLength = maxMessageLength;
+        this.errorHandler = errorHandler;
     }
 
     @Override
     public void handle(Buffer buffer) {
-        recordParser.handle(buffer);
-    }
-
-    private RecordParser initRecordParser(Handler<Buffer> bufferHandler) {
-        //构造parser
-        RecordParser parser = RecordParser.newFixed(ProtocolConstant.MESSAGE_HEADER_LENGTH);
-
-        parser.setOutput(new Handler<Buffer>() {
-            //初始化
-            int size = -1;
-            //一次完整的读取（头 + 体）
-            Buffer resultBuffer = Buffer.buffer();
-
-            @Override
-            public void handle(Buffer buffer) {
-                if (-1 == size) {
-                    //读取消息长度
-                    size = buffer.getInt(13);
-                    parser.fixedSizeMode(size);
-                    //写入头消息到结果
-                    resultBuffer.appendBuffer(buffer);
-                } else {
-                    //写入体信息到结果
-                    resultBuffer.appendBuffer(buffer);
-                    bufferHandler.handle(resultBuffer);
-                    //重置一轮
-                    parser.fixedSizeMode(8);
-                    size = -1;
-                    resultBuffer = Buffer.buffer();
+        if (failed) {
+            return;
+        }
+        cumulation.addComponent(true, BufferUtil.unwrap(buffer));
+        int headerLength = ProtocolConstant.MESSAGE_HEADER_LENGTH;
+        boolean consumed = false;
+        while (cumulation.readableBytes() >= headerLength) {
+            int readerIndex = cumulation.readerIndex();
+            //读取消息体长度，超过上限立即拒绝，数据不完整时等待下一个数据块
+            int bodyLength = cumulation.getInt(readerIndex + 13);
+            if (bodyLength < 0 || bodyLength > maxFrameLength) {
+                fail(new RuntimeException("消息长度超过上限：" + bodyLength));
+                return;
+            }
+            int frameLength = headerLength + bodyLength;
+            if (cumulation.readableBytes() < frameLength) {
+                break;
+            }
+            consumed = true;
+            if (cumulation.getByte(readerIndex + 3) == ProtocolMessageTypeEnum.FRAGMENT.getKey()) {
+                handleFragment(readerIndex, bodyLength);
+                // 失败时组合缓冲区已被替换，不能再移动读指针
+                if (failed) {
+                    return;
+                }
+                cumulation.readerIndex(readerIndex + frameLength);
+                continue;
+            }
+            if (cumulation.getByte(readerIndex + 3) == ProtocolMessageTypeEnum.BATCH.getKey()) {
+                handleBatch(readerIndex + headerLength, bodyLength);
+                // 失败时组合缓冲区已被替换，不能再移动读指针
+                if (failed) {
+                    return;
                 }
+                cumulation.readerIndex(readerIndex + frameLength);
+                continue;
+            }
+            ByteBuf frame = cumulation.slice(readerIndex, frameLength);
+            cumulation.readerIndex(readerIndex + frameLength);
+            bufferHandler.handle(BufferUtil.wrap(frame));
+        }
+        if (consumed) {
+            reset();
+        }
+    }
+
+    /**
+     * 收到一个分片，内容追加到对应 requestId 的重组缓冲区，最后一个分片（状态字节为 1）到达后交给处理器
+     */
+    private void handleFragment(int readerIndex, int bodyLength) {
+        long requestId = cumulation.getLong(readerIndex + 5);
+        boolean last = cumulation.getByte(readerIndex + 4) == 1;
+        CompositeByteBuf message = fragments.get(requestId);
+        if (message == null) {
+            if (fragments.size() >= MAX_PENDING_FRAGMENTS) {
+                fail(new RuntimeException("重组中的分片消息过多：" + fragments.size()));
+                return;
+            }
+            message = newCumulation();
+            fragments.put(requestId, message);
+        }
+        pendingFragmentBytes += bodyLength;
+        if (message.readableBytes() + bodyLength > (long) maxMessageLength + ProtocolConstant.MESSAGE_HEADER_LENGTH
+                || pendingFragmentBytes > (long) maxMessageLength + ProtocolConstant.MESSAGE_HEADER_LENGTH) {
+            fail(new RuntimeException("分片消息长度超过上限：requestId = " + requestId));
+            return;
+        }
+        if (bodyLength > 0) {
+            message.addComponents(true, cumulation.decompose(readerIndex + ProtocolConstant.MESSAGE_HEADER_LENGTH, bodyLength));
+        }
+        if (last) {
+            fragments.remove(requestId);
+            pendingFragmentBytes -= message.readableBytes();
+            bufferHandler.handle(BufferUtil.wrap(message));
+        }
+    }
+
+    /**
+     * 收到批量消息，按各消息头中的长度切分，逐个交给处理器，批量消息中不能嵌套分片或批量消息
+     */
+    private void handleBatch(int offset, int bodyLength) {
+        int headerLength = ProtocolConstant.MESSAGE_HEADER_LENGTH;
+        int end = offset + bodyLength;
+        while (offset < end) {
+            int itemBodyLength = end - offset >= headerLength ? cumulation.getInt(offset + 13) : -1;
+            if (itemBodyLength < 0 || itemBodyLength > end - offset - headerLength) {
+                fail(new RuntimeException("批量消息格式错误"));
+                return;
             }
-        });
-        return parser;
+            byte itemType = cumulation.getByte(offset + 3);
+            if (itemType == ProtocolMessageTypeEnum.FRAGMENT.getKey() || itemType == ProtocolMessageTypeEnum.BATCH.getKey()) {
+                fail(new RuntimeException("批量消息中不能包含分片或批量消息"));
+                return;
+            }
+            int itemLength = headerLength + itemBodyLength;
+            bufferHandler.handle(BufferUtil.wrap(cumulation.slice(offset, itemLength)));
+            offset += itemLength;
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        failed = true;
+        cumulation = newCumulation();
+        fragments.clear();
+        pendingFragmentBytes = 0;
+        if (errorHandler == null) {
+            throw e;
+        }
+        errorHandler.handle(e);
     }
 
+    /**
+     * 丢弃已处理的数据块，剩余的半包以原数据块切片的形式保留，避免组合缓冲区相互引用
+     */
+    private void reset() {
+        CompositeByteBuf remaining = newCumulation();
+        if (cumulation.isReadable()) {
+            remaining.addComponents(true, cumulation.decompose(cumulation.readerIndex(), cumulation.readableBytes()));
+        }
+        cumulation = remaining;
+    }
+
+    private static CompositeByteBuf newCumulation() {
+        return Unpooled.compositeBuffer(Integer.MAX_VALUE);
+    }
 }
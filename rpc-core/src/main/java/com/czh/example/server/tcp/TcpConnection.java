@@ -0,0 +1,562 @@
+package com.czh.example.server.tcp;
+
+import cn.hutool.core.util.IdUtil;
+import com.czh.example.application.RpcApplication;
+import com.czh.example.compress.CompressorConstant;
+import com.czh.example.config.ConsumerConfig;
+import com.czh.example.config.RpcConfig;
+import com.czh.example.fault.RpcRejectedException;
+import com.czh.example.model.HandshakeMessage;
+import com.czh.example.model.RpcRequest;
+import com.czh.example.model.RpcResponse;
+import com.czh.example.model.StreamMessage;
+import com.czh.example.protocol.*;
+import com.czh.example.registry.LocalRegistry;
+import com.czh.example.registry.LocalServiceMethod;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 消费端长连接（多路复用）
+ * 同一条连接上可以同时发送多个请求，响应按消息头中的 requestId 匹配回调用方
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/12 10:35
+ */
+@Slf4j
+public class TcpConnection implements StreamTransport {
+
+    private final NetSocket socket;
+
+    /**
+     * 本连接上等待响应的请求ID，连接断开时用于快速失败
+     */
+    private final Set<Long> inflightRequestIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 本连接上未结束的接收流（服务端流、双向流的返回值）：requestId -> 流
+     */
+    private final Map<Long, InboundStream<?>> inboundStreams = new ConcurrentHashMap<>();
+
+    /**
+     * 本连接上未结束的发送流（客户端流、双向流的参数）：requestId -> 流
+     */
+    private final Map<Long, OutboundStream<?>> outboundStreams = new ConcurrentHashMap<>();
+
+    private volatile boolean closed = false;
+
+    /**
+     * 服务提供者的方法ID表（服务名#方法签名 -> 方法ID），握手完成前为空，请求使用完整形式发送
+     * 旧版本服务提供者不回复握手，始终使用完整形式
+     */
+    private volatile Map<String, Integer> methodIds;
+
+    /**
+     * 请求使用的压缩器，握手确认服务提供者支持后设置，默认不压缩
+     */
+    private volatile byte compressor;
+
+    /**
+     * 是否接受压缩的响应：握手时已告知服务提供者本端可以解压的压缩器，收到握手回复后设置
+     */
+    private volatile boolean compressed;
+
+    /**
+     * 请求的分片大小，握手确认服务提供者支持后设置，默认不分片
+     */
+    private volatile int fragmentSize;
+
+    /**
+     * 服务提供者是否处理取消消息，握手确认后设置；超时或调用方取消的请求通知服务提供者停止执行
+     */
+    private volatile boolean cancelEnabled;
+
+    /**
+     * 服务提供者是否处理批量消息，握手确认后设置
+     */
+    private volatile boolean batchEnabled;
+
+    /**
+     * 服务提供者是否按请求的超时时间计算截止时间，握手确认后设置；未确认时请求不携带超时时间
+     */
+    private volatile boolean deadlineEnabled;
+
+    /**
+     * 请求批量发送，没有配置批量发送的服务时为空
+     */
+    private final RequestBatcher batcher;
+
+    /**
+     * 连接的写队列，同一轮事件循环内的消息合并写入；不在 I/O 上下文中创建的连接为空，直接写入 Socket
+     */
+    private final WriteQueue writeQueue;
+
+    /**
+     * 消息的写入目标
+     */
+    private final FrameWriter writer;
+
+    /**
+     * 心跳和空闲检测
+     */
+    private final ConnectionHeartbeat heartbeat;
+
+    public TcpConnection(NetSocket socket) {
+        this(socket, () -> {
+        });
+    }
+
+    /**
+     * @param deadHandler 心跳检测到服务提供者失效时的回调
+     */
+    public TcpConnection(NetSocket socket, Runnable deadHandler) {
+        this.socket = socket;
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        // 在连接所属的上下文合并写入、定时检查和批量发送
+        Context context = Vertx.currentContext();
+        this.writeQueue = context == null ? null
+                : new WriteQueue(socket, context, rpcConfig.getWriteHighWatermark(), rpcConfig.getWriteLowWatermark());
+        this.writer = writeQueue == null ? socket::write : writeQueue;
+        this.heartbeat = new ConnectionHeartbeat(socket, writer, rpcConfig.getHeartbeatInterval(), rpcConfig.getHeartbeatMissLimit(),
+                rpcConfig.getIdleTimeout(), () -> getPendingCount() > 0 || !outboundStreams.isEmpty(), deadHandler);
+        socket.handler(new TcpBufferHandlerWrapper(this::handleResponse, rpcConfig.getMaxFrameLength(),
+                rpcConfig.getMaxMessageLength(), e -> {
+            log.error("消息长度超过上限，关闭连接 {}", socket.remoteAddress(), e);
+            socket.close();
+        }));
+        socket.closeHandler(v -> handleClose());
+        socket.exceptionHandler(e -> {
+            log.error("TCP连接异常 {}", socket.remoteAddress(), e);
+            socket.close();
+        });
+        if (rpcConfig.getConsumerConfig().isMethodIdEnabled() || !CompressorConstant.NONE.equals(rpcConfig.getCompressor())
+                || rpcConfig.getFragmentSize() > 0 || rpcConfig.getHeartbeatInterval() > 0
+                || !rpcConfig.getConsumerConfig().getBatchServices().isEmpty()) {
+            handshake();
+        }
+        if (context != null) {
+            heartbeat.start(context.owner());
+        }
+        ConsumerConfig consumerConfig = rpcConfig.getConsumerConfig();
+        this.batcher = context == null || consumerConfig.getBatchServices().isEmpty() ? null
+                : new RequestBatcher(writer, context, consumerConfig.getBatchMaxSize(), consumerConfig.getBatchDelay(),
+                PendingRequestRegistry::fail);
+    }
+
+    /**
+     * 发送握手请求，获取服务提供者的方法ID表，并交换双方支持的压缩器、分片大小、心跳周期和取消
+     */
+    private void handshake() {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer()).getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.HANDSHAKE.getKey());
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        try {
+            HandshakeMessage handshakeMessage = new HandshakeMessage(null, ProtocolMessageCompressorEnum.getAvailableValues(),
+                    RpcApplication.getRpcConfig().getFragmentSize(), RpcApplication.getRpcConfig().getHeartbeatInterval(), true, true, true);
+            ProtocolMessageEncoder.write(writer, new ProtocolMessage<>(header, handshakeMessage));
+        } catch (IOException e) {
+            log.warn("握手消息编码错误，使用完整请求 {}", socket.remoteAddress(), e);
+        }
+    }
+
+    /**
+     * 发送请求，返回的结果在收到对应 requestId 的响应或超时时完成
+     */
+    public CompletableFuture<RpcResponse> send(ProtocolMessage<RpcRequest> protocolMessage, long timeoutMillis) {
+        return send(protocolMessage, null, timeoutMillis);
+    }
+
+    /**
+     * 发送请求
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     */
+    public CompletableFuture<RpcResponse> send(ProtocolMessage<RpcRequest> protocolMessage, String methodKey,
+                                               long timeoutMillis) {
+        return send(protocolMessage, methodKey, timeoutMillis, null);
+    }
+
+    /**
+     * 发送请求，channel 不为空时为客户端流调用：请求发出后通道绑定到本连接上的发送流，收到响应后停止发送
+     *
+     * @param methodKey     方法ID表的键（预先计算），为空时按请求计算
+     * @param timeoutMillis 等待响应的超时时间，不大于 0 时不超时
+     */
+    public CompletableFuture<RpcResponse> send(ProtocolMessage<RpcRequest> protocolMessage, String methodKey,
+                                               long timeoutMillis, StreamChannel<?> channel) {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        if (closed) {
+            return CompletableFuture.failedFuture(new RuntimeException("TCP连接已关闭"));
+        }
+        CompletableFuture<RpcResponse> responseFuture = PendingRequestRegistry.register(requestId, timeoutMillis);
+        inflightRequestIds.add(requestId);
+        OutboundStream<?> outboundStream = channel == null ? null : registerOutbound(requestId);
+        responseFuture.whenComplete((rpcResponse, e) -> {
+            inflightRequestIds.remove(requestId);
+            if (outboundStream != null) {
+                outboundStreams.remove(requestId);
+                outboundStream.cancel(e);
+            }
+            // 超时或调用方取消：通知服务提供者不必再执行
+            if (e instanceof CancellationException) {
+                PendingRequestRegistry.remove(requestId);
+                writeCancel(requestId);
+            } else if (e instanceof TimeoutException) {
+                writeCancel(requestId);
+            }
+        });
+        protocolMessage.getHeader().setCompressor(compressor);
+        protocolMessage.getHeader().setFragmentSize(fragmentSize);
+        heartbeat.onActive();
+        // 配置了批量发送的服务，交给批量发送合并写入
+        if (channel == null && isBatched(protocolMessage.getBody())) {
+            batcher.add(compact(protocolMessage, methodKey));
+            return responseFuture;
+        }
+        try {
+            ProtocolMessageEncoder.write(writer, compact(protocolMessage, methodKey))
+                    .onFailure(e -> PendingRequestRegistry.fail(requestId, e));
+        } catch (IOException e) {
+            PendingRequestRegistry.fail(requestId, new RuntimeException("协议消息编码错误", e));
+            return responseFuture;
+        }
+        if (channel != null) {
+            bind(channel, outboundStream);
+        }
+        return responseFuture;
+    }
+
+    private boolean isBatched(RpcRequest rpcRequest) {
+        return batcher != null && batchEnabled
+                && RpcApplication.getRpcConfig().getConsumerConfig().getBatchServices().contains(rpcRequest.getServiceName());
+    }
+
+    /**
+     * 发送单向请求，不登记等待响应，写入完成时返回的结果完成
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     */
+    public CompletableFuture<Void> sendOneWay(ProtocolMessage<RpcRequest> protocolMessage, String methodKey) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new RuntimeException("TCP连接已关闭"));
+        }
+        protocolMessage.getHeader().setCompressor(compressor);
+        protocolMessage.getHeader().setFragmentSize(fragmentSize);
+        heartbeat.onActive();
+        try {
+            return ProtocolMessageEncoder.write(writer, compact(protocolMessage, methodKey))
+                    .toCompletionStage().toCompletableFuture();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("协议消息编码错误", e));
+        }
+    }
+
+    /**
+     * 发起服务端流或双向流调用：发送请求后立即授予初始额度，服务提供者的元素按 requestId 交给返回的流
+     * channel 不为空时为双向流，请求发出后通道绑定到本连接上的发送流
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     */
+    public <T> InboundStream<T> openStream(ProtocolMessage<RpcRequest> protocolMessage, String methodKey,
+                                           int window, long timeoutMillis, StreamChannel<?> channel) {
+        if (closed) {
+            throw new RuntimeException("TCP连接已关闭");
+        }
+        long requestId = protocolMessage.getHeader().getRequestId();
+        InboundStream<T> inboundStream = new InboundStream<>(this, requestId, window, timeoutMillis);
+        inboundStreams.put(requestId, inboundStream);
+        OutboundStream<?> outboundStream = channel == null ? null : registerOutbound(requestId);
+        protocolMessage.getHeader().setCompressor(compressor);
+        protocolMessage.getHeader().setFragmentSize(fragmentSize);
+        heartbeat.onActive();
+        try {
+            ProtocolMessageEncoder.write(writer, compact(protocolMessage, methodKey))
+                    .onFailure(e -> failStream(requestId, e));
+        } catch (IOException e) {
+            failStream(requestId, e);
+            throw new RuntimeException("协议消息编码错误", e);
+        }
+        writeStreamMessage(requestId, ProtocolMessageTypeEnum.STREAM_CREDIT, StreamMessage.credit(inboundStream.getWindow()));
+        if (channel != null) {
+            bind(channel, outboundStream);
+        }
+        return inboundStream;
+    }
+
+    private OutboundStream<?> registerOutbound(long requestId) {
+        OutboundStream<?> outboundStream = new OutboundStream<>(this, requestId,
+                RpcApplication.getRpcConfig().getConsumerConfig().getRequestTimeout());
+        outboundStreams.put(requestId, outboundStream);
+        return outboundStream;
+    }
+
+    private static void bind(StreamChannel<?> channel, OutboundStream<?> outboundStream) {
+        ((StreamChannel<Object>) channel).bind((OutboundStream<Object>) outboundStream);
+    }
+
+    /**
+     * 通知服务提供者取消请求，服务提供者不支持时不发送
+     */
+    private void writeCancel(long requestId) {
+        if (closed || !cancelEnabled) {
+            return;
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer()).getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.CANCEL.getKey());
+        header.setRequestId(requestId);
+        try {
+            ProtocolMessageEncoder.write(writer, new ProtocolMessage<>(header, null));
+        } catch (IOException e) {
+            log.warn("取消消息编码错误 requestId = {}", requestId, e);
+        }
+    }
+
+    @Override
+    public void writeStreamMessage(long requestId, ProtocolMessageTypeEnum type, StreamMessage streamMessage) {
+        if (closed) {
+            return;
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer()).getKey());
+        header.setCompressor(compressor);
+        header.setType((byte) type.getKey());
+        header.setRequestId(requestId);
+        try {
+            ProtocolMessageEncoder.write(writer, new ProtocolMessage<>(header, streamMessage))
+                    .onFailure(e -> failStream(requestId, e));
+        } catch (IOException e) {
+            failStream(requestId, new RuntimeException("协议消息编码错误", e));
+        }
+    }
+
+    @Override
+    public void removeInbound(long requestId) {
+        inboundStreams.remove(requestId);
+    }
+
+    @Override
+    public void removeOutbound(long requestId) {
+        outboundStreams.remove(requestId);
+    }
+
+    /**
+     * 流失败（发送失败、调用失败、连接断开），两个方向都结束
+     */
+    private void failStream(long requestId, Throwable e) {
+        InboundStream<?> inboundStream = inboundStreams.remove(requestId);
+        if (inboundStream != null) {
+            inboundStream.onEnd(e);
+        }
+        OutboundStream<?> outboundStream = outboundStreams.remove(requestId);
+        if (outboundStream != null) {
+            outboundStream.cancel(e);
+        }
+    }
+
+    /**
+     * 握手完成后，请求只携带方法ID和参数；服务提供者没有该方法ID时使用完整形式
+     * 服务提供者未确认支持截止时间时去掉超时时间，旧版本服务提供者不认识该字段
+     * 不修改原请求，重试时可能发往其他服务提供者
+     */
+    private ProtocolMessage<RpcRequest> compact(ProtocolMessage<RpcRequest> protocolMessage, String methodKey) {
+        Map<String, Integer> methodIds = this.methodIds;
+        RpcRequest rpcRequest = protocolMessage.getBody();
+        Long timeout = deadlineEnabled ? rpcRequest.getTimeout() : null;
+        Integer methodId = rpcRequest.getMethodId();
+        if (methodId == null && methodIds != null) {
+            if (methodKey == null) {
+                methodKey = LocalRegistry.getMethodKey(rpcRequest.getServiceName(),
+                        LocalServiceMethod.getSignature(rpcRequest.getMethodName(), rpcRequest.getParameterTypes()));
+            }
+            methodId = methodIds.get(methodKey);
+        }
+        if (methodId == null) {
+            if (timeout == null && rpcRequest.getTimeout() != null) {
+                RpcRequest fullRequest = RpcRequest.builder()
+                        .serviceName(rpcRequest.getServiceName())
+                        .methodName(rpcRequest.getMethodName())
+                        .serviceVersion(rpcRequest.getServiceVersion())
+                        .parameterTypes(rpcRequest.getParameterTypes())
+                        .args(rpcRequest.getArgs())
+                        .build();
+                return new ProtocolMessage<>(protocolMessage.getHeader(), fullRequest);
+            }
+            return protocolMessage;
+        }
+        if (methodId.equals(rpcRequest.getMethodId()) && Objects.equals(timeout, rpcRequest.getTimeout())) {
+            return protocolMessage;
+        }
+        RpcRequest compactRequest = RpcRequest.builder()
+                .methodId(methodId)
+                .timeout(timeout)
+                .args(rpcRequest.getArgs())
+                .build();
+        return new ProtocolMessage<>(protocolMessage.getHeader(), compactRequest);
+    }
+
+    /**
+     * 处理响应，按 requestId 完成等待的请求
+     */
+    private void handleResponse(Buffer buffer) {
+        ProtocolMessage<?> protocolMessage;
+        try {
+            protocolMessage = ProtocolMessageDecoder.decode(buffer, RpcApplication.getRpcConfig().getMaxMessageLength(), compressed);
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息解码错误");
+        }
+        ProtocolMessage.Header header = protocolMessage.getHeader();
+        heartbeat.onRead(header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey());
+        // 心跳：回复服务提供者的心跳请求，心跳回复只刷新读取时间
+        if (header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey()) {
+            if (header.getStatus() == ConnectionHeartbeat.PING) {
+                ConnectionHeartbeat.writeHeartbeat(writer, header.getRequestId(), (byte) ProtocolMessageStatusEnum.OK.getValue());
+            }
+            return;
+        }
+        if (header.getType() == ProtocolMessageTypeEnum.HANDSHAKE.getKey()) {
+            HandshakeMessage handshakeMessage = (HandshakeMessage) protocolMessage.getBody();
+            RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+            compressor = (byte) ProtocolMessageCompressorEnum.negotiate(rpcConfig.getCompressor(),
+                    handshakeMessage.getCompressors()).getKey();
+            fragmentSize = HandshakeMessage.negotiateFragmentSize(rpcConfig.getFragmentSize(), handshakeMessage.getFragmentSize());
+            if (handshakeMessage.getHeartbeatInterval() > 0) {
+                heartbeat.enableHeartbeat();
+            }
+            cancelEnabled = handshakeMessage.isCancel();
+            batchEnabled = handshakeMessage.isBatch();
+            deadlineEnabled = handshakeMessage.isDeadline();
+            compressed = true;
+            if (rpcConfig.getConsumerConfig().isMethodIdEnabled()) {
+                methodIds = handshakeMessage.getMethodIds() == null ? Collections.emptyMap() : handshakeMessage.getMethodIds();
+            }
+            return;
+        }
+        if (protocolMessage.getBody() instanceof StreamMessage) {
+            handleStream(protocolMessage);
+            return;
+        }
+        long requestId = protocolMessage.getHeader().getRequestId();
+        RpcResponse rpcResponse = (RpcResponse) protocolMessage.getBody();
+        // 服务提供者拒绝执行（服务繁忙等），调用方可以换一个节点重试
+        int status = header.getStatus();
+        RuntimeException rejected = ProtocolMessageStatusEnum.isRejected(status)
+                ? new RpcRejectedException(ProtocolMessageStatusEnum.getEnumByValue(status), rpcResponse.getMessage()) : null;
+        // 流调用失败（服务不存在、调用异常）时服务提供者回复普通响应
+        if (!inboundStreams.isEmpty() && inboundStreams.containsKey(requestId)) {
+            failStream(requestId, rejected != null ? rejected : rpcResponse.getException() != null ? rpcResponse.getException()
+                    : new RuntimeException("服务方法不是流方法：" + rpcResponse.getMessage()));
+            return;
+        }
+        if (rejected != null) {
+            PendingRequestRegistry.fail(requestId, rejected);
+            return;
+        }
+        if (!PendingRequestRegistry.complete(requestId, rpcResponse)) {
+            log.warn("收到已超时或未知请求的响应 requestId = {}", requestId);
+        }
+    }
+
+    /**
+     * 处理流消息：STREAM_DATA、STREAM_END 交给接收流，STREAM_CREDIT 和服务提供者的取消交给发送流
+     */
+    private void handleStream(ProtocolMessage<?> protocolMessage) {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        int type = protocolMessage.getHeader().getType();
+        StreamMessage streamMessage = (StreamMessage) protocolMessage.getBody();
+        if (type == ProtocolMessageTypeEnum.STREAM_DATA.getKey()) {
+            InboundStream<?> inboundStream = inboundStreams.get(requestId);
+            if (inboundStream != null) {
+                inboundStream.onData(streamMessage);
+            }
+        } else if (type == ProtocolMessageTypeEnum.STREAM_CREDIT.getKey()) {
+            OutboundStream<?> outboundStream = outboundStreams.get(requestId);
+            if (outboundStream != null) {
+                outboundStream.addCredit(streamMessage.getCredit());
+            }
+        } else if (streamMessage.isCancel()) {
+            OutboundStream<?> outboundStream = outboundStreams.remove(requestId);
+            if (outboundStream != null) {
+                outboundStream.cancel(null);
+            }
+        } else {
+            InboundStream<?> inboundStream = inboundStreams.remove(requestId);
+            if (inboundStream != null) {
+                inboundStream.onEnd(streamMessage.getException());
+            }
+        }
+    }
+
+    /**
+     * 连接关闭，该连接上未完成的请求和流全部失败
+     */
+    private void handleClose() {
+        closed = true;
+        heartbeat.stop();
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        RuntimeException e = new RuntimeException("TCP连接已关闭");
+        for (Long requestId : inflightRequestIds) {
+            PendingRequestRegistry.fail(requestId, e);
+        }
+        for (Long requestId : inboundStreams.keySet()) {
+            failStream(requestId, e);
+        }
+        for (Long requestId : outboundStreams.keySet()) {
+            failStream(requestId, e);
+        }
+    }
+
+    /**
+     * 连接是否可用
+     */
+    public boolean isActive() {
+        return !closed;
+    }
+
+    /**
+     * 写队列超过高水位线时等待恢复可写，实现对调用方的背压（不能在 I/O 线程调用）
+     *
+     * @return 超时仍不可写返回 false
+     */
+    public boolean awaitWritable(long timeoutMillis) throws InterruptedException {
+        return writeQueue == null || closed || writeQueue.awaitWritable(timeoutMillis);
+    }
+
+    public boolean isWritable() {
+        return writeQueue == null || writeQueue.isWritable();
+    }
+
+    /**
+     * 等待响应的请求数
+     */
+    public int getPendingCount() {
+        return inflightRequestIds.size() + inboundStreams.size();
+    }
+
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,110 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.application.RpcApplication;
+import com.czh.example.config.RpcConfig;
+import io.vertx.core.net.NetClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个服务提供者地址的连接池
+ * 固定数量的连接槽位，按需懒加载建立连接，请求轮询分配到各连接上多路复用
+ * 心跳检测到服务提供者失效或建立连接失败时，在一段时间内标记该地址不可用，服务发现结果中跳过该地址
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/12 10:50
+ */
+public class TcpConnectionPool {
+
+    private final NetClient netClient;
+
+    private final String host;
+
+    private final int port;
+
+    /**
+     * 连接槽位，每个槽位保存一条（正在建立或已建立的）连接
+     */
+    private final AtomicReferenceArray<CompletableFuture<TcpConnection>> slots;
+
+    private final AtomicInteger nextSlot = new AtomicInteger(0);
+
+    /**
+     * 标记不可用的截止时间
+     */
+    private volatile long unavailableUntil;
+
+    public TcpConnectionPool(NetClient netClient, String host, int port, int maxConnections) {
+        this.netClient = netClient;
+        this.host = host;
+        this.port = port;
+        this.slots = new AtomicReferenceArray<>(Math.max(1, maxConnections));
+    }
+
+    /**
+     * 获取一条连接，槽位为空或连接已失效时重新建立
+     */
+    public CompletableFuture<TcpConnection> acquire() {
+        int slot = Math.floorMod(nextSlot.getAndIncrement(), slots.length());
+        CompletableFuture<TcpConnection> current = slots.get(slot);
+        if (current != null && isUsable(current)) {
+            return current;
+        }
+        CompletableFuture<TcpConnection> created = new CompletableFuture<>();
+        if (slots.compareAndSet(slot, current, created)) {
+            connect(created);
+            return created;
+        }
+        // 其他线程已经替换了该槽位
+        return slots.get(slot);
+    }
+
+    private void connect(CompletableFuture<TcpConnection> connectionFuture) {
+        netClient.connect(port, host, result -> {
+            if (result.succeeded()) {
+                connectionFuture.complete(new TcpConnection(result.result(), this::markUnavailable));
+            } else {
+                markUnavailable();
+                connectionFuture.completeExceptionally(result.cause());
+            }
+        });
+    }
+
+    /**
+     * 标记不可用，时长为心跳失效的判定时间（心跳周期 * 允许丢失次数）
+     */
+    void markUnavailable() {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        long period = rpcConfig.getHeartbeatInterval() * Math.max(1, rpcConfig.getHeartbeatMissLimit());
+        unavailableUntil = System.currentTimeMillis() + period;
+    }
+
+    /**
+     * 地址是否可用（最近没有检测到失效）
+     */
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    private boolean isUsable(CompletableFuture<TcpConnection> connectionFuture) {
+        if (!connectionFuture.isDone()) {
+            return true;
+        }
+        return !connectionFuture.isCompletedExceptionally() && connectionFuture.join().isActive();
+    }
+
+    /**
+     * 关闭池中所有连接
+     */
+    public void close() {
+        for (int i = 0; i < slots.length(); i++) {
+            CompletableFuture<TcpConnection> connectionFuture = slots.getAndSet(i, null);
+            if (connectionFuture != null) {
+                connectionFuture.thenAccept(TcpConnection::close);
+            }
+        }
+    }
+}
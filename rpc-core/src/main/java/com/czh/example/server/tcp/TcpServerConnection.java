@@ -0,0 +1,201 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.StreamMessage;
+import com.czh.example.protocol.ProtocolMessage;
+import com.czh.example.protocol.ProtocolMessageEncoder;
+import com.czh.example.protocol.ProtocolMessageStatusEnum;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+import io.vertx.core.Context;
+import io.vertx.core.net.NetSocket;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务提供者端的连接
+ * 保存连接所属的 I/O 上下文、握手协商的结果、写队列、心跳检测、正在处理的请求和正在收发的流
+ * 写队列超过高水位线（服务消费者读取太慢）时暂停读取新的请求，恢复可写后继续读取
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 11:00
+ */
+@Getter
+public class TcpServerConnection implements StreamTransport {
+
+    private final NetSocket socket;
+
+    /**
+     * 连接所属的 I/O 上下文，解码和编码都在该上下文执行
+     */
+    private final Context context;
+
+    /**
+     * 响应使用的压缩器（握手确认服务消费者支持后设置，默认不压缩）
+     */
+    @Setter
+    private volatile byte compressor;
+
+    /**
+     * 是否接受压缩的请求：收到握手并告知服务消费者本端可以解压的压缩器后设置
+     */
+    @Setter
+    private volatile boolean compressed;
+
+    /**
+     * 响应的分片大小（握手确认服务消费者支持后设置，默认不分片）
+     */
+    @Setter
+    private volatile int fragmentSize;
+
+    /**
+     * 本连接上正在发送的服务端流：requestId -> 流
+     */
+    private final Map<Long, ServerStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 本连接上正在接收的客户端流：requestId -> 流
+     */
+    private final Map<Long, InboundStream<?>> inboundStreams = new ConcurrentHashMap<>();
+
+    /**
+     * 请求的消息头：requestId -> 消息头，流消息沿用其序列化器
+     */
+    private final Map<Long, ProtocolMessage.Header> streamHeaders = new ConcurrentHashMap<>();
+
+    /**
+     * 正在处理（排队或执行中）的请求：requestId -> 请求，服务消费者取消时按 requestId 查找
+     */
+    private final Map<Long, RunningInvocation> invocations = new ConcurrentHashMap<>();
+
+    /**
+     * 正在处理的请求数，有请求时连接不算空闲
+     */
+    private final AtomicInteger inflightCount = new AtomicInteger();
+
+    /**
+     * 心跳和空闲检测
+     */
+    private final ConnectionHeartbeat heartbeat;
+
+    /**
+     * 写队列，响应和流消息合并写入
+     */
+    private final WriteQueue writeQueue;
+
+    public TcpServerConnection(NetSocket socket, Context context, long heartbeatInterval, int heartbeatMissLimit,
+                               long idleTimeout) {
+        this(socket, context, heartbeatInterval, heartbeatMissLimit, idleTimeout, 0, 0);
+    }
+
+    public TcpServerConnection(NetSocket socket, Context context, long heartbeatInterval, int heartbeatMissLimit,
+                               long idleTimeout, long writeHighWatermark, long writeLowWatermark) {
+        this.socket = socket;
+        this.context = context;
+        this.writeQueue = new WriteQueue(socket, context, writeHighWatermark, writeLowWatermark);
+        this.writeQueue.writabilityHandler(writable -> {
+            if (writable) {
+                socket.resume();
+            } else {
+                socket.pause();
+            }
+        });
+        this.heartbeat = new ConnectionHeartbeat(socket, writeQueue, heartbeatInterval, heartbeatMissLimit, idleTimeout,
+                () -> inflightCount.get() > 0 || !streams.isEmpty() || !inboundStreams.isEmpty(), () -> {
+        });
+    }
+
+    /**
+     * 登记客户端流并授予初始额度（I/O 线程）
+     */
+    public InboundStream<?> openInbound(ProtocolMessage.Header requestHeader, int window) {
+        long requestId = requestHeader.getRequestId();
+        InboundStream<?> inboundStream = new InboundStream<>(this, requestId, window, 0);
+        streamHeaders.put(requestId, requestHeader);
+        inboundStreams.put(requestId, inboundStream);
+        writeStreamMessage(requestId, ProtocolMessageTypeEnum.STREAM_CREDIT, StreamMessage.credit(inboundStream.getWindow()));
+        return inboundStream;
+    }
+
+    /**
+     * 调用结束，不再读取客户端流，未结束时通知服务消费者停止发送
+     */
+    public void closeInbound(long requestId) {
+        InboundStream<?> inboundStream = inboundStreams.get(requestId);
+        if (inboundStream != null) {
+            inboundStream.close();
+        }
+        streamHeaders.remove(requestId);
+    }
+
+    /**
+     * 切回 I/O 线程编码发送，同一个流的消息按提交顺序发送
+     */
+    @Override
+    public void writeStreamMessage(long requestId, ProtocolMessageTypeEnum type, StreamMessage streamMessage) {
+        ProtocolMessage.Header requestHeader = streamHeaders.get(requestId);
+        if (requestHeader == null) {
+            ServerStream serverStream = streams.get(requestId);
+            if (serverStream == null) {
+                return;
+            }
+            requestHeader = serverStream.getRequestHeader();
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(requestHeader.getMagic());
+        header.setVersion(requestHeader.getVersion());
+        header.setSerializer(requestHeader.getSerializer());
+        header.setType((byte) type.getKey());
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setRequestId(requestId);
+        context.runOnContext(v -> {
+            header.setCompressor(compressor);
+            try {
+                // 元素无法发送（超过单帧上限）时编码器已结束服务消费者的流，停止继续发送
+                ProtocolMessageEncoder.write(writeQueue, new ProtocolMessage<>(header, streamMessage))
+                        .onFailure(e -> {
+                            ServerStream serverStream = streams.get(requestId);
+                            if (serverStream != null) {
+                                serverStream.cancel();
+                            }
+                        });
+            } catch (IOException e) {
+                throw new RuntimeException("协议消息编码错误");
+            }
+        });
+    }
+
+    @Override
+    public void removeInbound(long requestId) {
+        inboundStreams.remove(requestId);
+    }
+
+    @Override
+    public void removeOutbound(long requestId) {
+        streams.remove(requestId);
+    }
+
+    /**
+     * 连接关闭，停止所有流
+     */
+    public void closeStreams() {
+        // 服务消费者已断开，正在处理的请求不必再执行
+        for (RunningInvocation invocation : invocations.values()) {
+            invocation.cancel(false);
+        }
+        invocations.clear();
+        for (ServerStream stream : streams.values()) {
+            stream.cancel();
+        }
+        RuntimeException e = new RuntimeException("TCP连接已关闭");
+        for (InboundStream<?> inboundStream : inboundStreams.values()) {
+            inboundStream.onEnd(e);
+        }
+        inboundStreams.clear();
+        streamHeaders.clear();
+    }
+}
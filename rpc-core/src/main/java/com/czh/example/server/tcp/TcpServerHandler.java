@@ -1,73 +1,584 @@
 package com.czh.example.server.tcp;
 
+import com.czh.example.application.RpcApplication;
+import com.czh.example.config.ProviderConfig;
+import com.czh.example.config.RpcConfig;
+import com.czh.example.context.RpcContext;
+import com.czh.example.dispatcher.Dispatcher;
+import com.czh.example.dispatcher.DispatcherConstant;
+import com.czh.example.factory.DispatcherFactory;
+import com.czh.example.factory.SerializerFactory;
+import com.czh.example.limiter.AdaptiveConcurrencyLimiter;
+import com.czh.example.limiter.RateLimiterRegistry;
+import com.czh.example.model.HandshakeMessage;
 import com.czh.example.model.RpcRequest;
 import com.czh.example.model.RpcResponse;
+import com.czh.example.model.StreamMessage;
 import com.czh.example.protocol.*;
 import com.czh.example.registry.LocalRegistry;
+import com.czh.example.registry.LocalService;
+import com.czh.example.registry.LocalServiceMethod;
+import com.czh.example.serializer.Serializer;
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
-import io.vertx.core.buffer.Buffer;
+import io.vertx.core.Vertx;
 import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 请求处理器（服务提供者）
+ * 请求携带超时时间时，收到请求即按本地时钟计算截止时间，分发到业务线程后先检查，
+ * 已超过截止时间的请求（服务消费者已放弃等待）直接丢弃，不执行也不响应
+ * 正在处理的请求按 requestId 登记，服务消费者发来 CANCEL 时跳过排队中的请求、中断执行中的请求，不再响应
+ * 单向请求（状态字节为 REQUEST_ONE_WAY）只执行，不构造、序列化和发送响应
+ * 每个服务的排队请求数有上限，超过上限或排队时间超过预算的请求不执行，回复 SERVICE_BUSY
+ * 开启自适应并发限制时，每个服务按观察到的请求耗时动态调整并发上限，超过上限的请求在 I/O 线程直接回复 SERVICE_BUSY
+ * 配置了限流的服务或方法，超过速率的请求在 I/O 线程直接回复 RATE_LIMITED
  *
  * @author czh
  * @version 1.0.0
  * 2024/3/22 13:14
  */
+@Slf4j
 public class TcpServerHandler implements Handler<NetSocket> {
 
+    /**
+     * 请求分发器，业务逻辑在分发器选择的线程执行
+     */
+    private final Dispatcher dispatcher = DispatcherFactory.getInstance(RpcApplication.getRpcConfig().isVirtualThread()
+            ? DispatcherConstant.VIRTUAL : RpcApplication.getRpcConfig().getProviderConfig().getDispatcher());
+
+    /**
+     * 因超过截止时间被丢弃的请求数
+     */
+    private static final AtomicLong EXPIRED_COUNT = new AtomicLong();
+
+    /**
+     * 因服务繁忙被拒绝的请求数
+     */
+    private static final AtomicLong REJECTED_COUNT = new AtomicLong();
+
+    /**
+     * 因超过限流速率被拒绝的请求数
+     */
+    private static final AtomicLong RATE_LIMITED_COUNT = new AtomicLong();
+
+    /**
+     * 每个服务排队等待执行的请求数：服务名 -> 请求数
+     */
+    private final Map<String, AtomicInteger> queuedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 每个服务的自适应并发限制：服务名 -> 并发限制
+     */
+    private static final Map<String, AdaptiveConcurrencyLimiter> CONCURRENCY_LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * 服务消费者取消的请求数
+     */
+    private static final AtomicLong CANCELLED_COUNT = new AtomicLong();
+
     /**
      * 处理请求
      */
     @Override
     public void handle(NetSocket socket) {
+        // 连接所属的 I/O 上下文，解码和编码都在该上下文执行
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        TcpServerConnection connection = new TcpServerConnection(socket, Vertx.currentContext(),
+                rpcConfig.getHeartbeatInterval(), rpcConfig.getHeartbeatMissLimit(), rpcConfig.getIdleTimeout(),
+                rpcConfig.getWriteHighWatermark(), rpcConfig.getWriteLowWatermark());
+        ConnectionHeartbeat heartbeat = connection.getHeartbeat();
         // 获取socket的输入输出流
         TcpBufferHandlerWrapper tcpBufferHandlerWrapper = new TcpBufferHandlerWrapper(buffer -> {
             // 接受请求，解码
-            ProtocolMessage<RpcRequest> protocolMessage;
+            ProtocolMessage<?> protocolMessage;
             try {
-                protocolMessage = (ProtocolMessage<RpcRequest>) ProtocolMessageDecoder.decode(buffer);
+                protocolMessage = ProtocolMessageDecoder.decode(buffer, rpcConfig.getMaxMessageLength(), connection.isCompressed());
             } catch (IOException e) {
                 throw new RuntimeException("协议消息解码错误");
             }
-            RpcRequest rpcRequest = protocolMessage.getBody();
             ProtocolMessage.Header header = protocolMessage.getHeader();
+            heartbeat.onRead(header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey());
+            // 心跳：回复服务消费者的心跳请求
+            if (header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey()) {
+                if (header.getStatus() == ConnectionHeartbeat.PING) {
+                    ConnectionHeartbeat.writeHeartbeat(connection.getWriteQueue(), header.getRequestId(), (byte) ProtocolMessageStatusEnum.OK.getValue());
+                }
+                return;
+            }
+            // 取消：服务消费者已超时或放弃调用
+            if (header.getType() == ProtocolMessageTypeEnum.CANCEL.getKey()) {
+                doCancel(connection, header.getRequestId());
+                return;
+            }
+            // 握手：回复方法ID表和支持的压缩器
+            if (header.getType() == ProtocolMessageTypeEnum.HANDSHAKE.getKey()) {
+                doHandshake(connection, header, (HandshakeMessage) protocolMessage.getBody());
+                return;
+            }
+            // 流消息：客户端流的元素、服务端流的额度和取消
+            if (protocolMessage.getBody() instanceof StreamMessage) {
+                doStreamControl(connection, header, (StreamMessage) protocolMessage.getBody());
+                return;
+            }
+            RpcRequest rpcRequest = (RpcRequest) protocolMessage.getBody();
+
+            // 使用方法ID的请求，补全服务名、方法名和参数类型
+            if (rpcRequest.getMethodId() != null && !resolveMethodId(rpcRequest)) {
+                doError(connection, header, "服务方法不存在：methodId = " + rpcRequest.getMethodId());
+                return;
+            }
+
+            // 服务不存在时直接回复，线程池、排队计数和并发限制只按已注册的服务创建
+            if (rpcRequest.getServiceName() == null || LocalRegistry.getService(rpcRequest.getServiceName()) == null) {
+                doError(connection, header, "服务不存在：" + rpcRequest.getServiceName());
+                return;
+            }
+
+            // 截止时间从收到请求开始计算，不依赖两端时钟一致
+            long receivedAt = System.nanoTime();
+            Long deadline = rpcRequest.getTimeout() == null ? null : RpcContext.deadlineOf(rpcRequest.getTimeout());
 
-            // 处理请求
-            // 构造响应结果对象
-            RpcResponse rpcResponse = new RpcResponse();
+            // 排队请求数超过上限，不再排队，直接回复服务繁忙
+            ProviderConfig providerConfig = rpcConfig.getProviderConfig();
+            AtomicInteger queued = queuedCounts.computeIfAbsent(rpcRequest.getServiceName(), key -> new AtomicInteger());
+            if (queued.incrementAndGet() > providerConfig.getQueueCapacity() && providerConfig.getQueueCapacity() > 0) {
+                queued.decrementAndGet();
+                reject(connection, header, rpcRequest, "服务繁忙：排队请求数超过上限", ProtocolMessageStatusEnum.SERVICE_BUSY);
+                return;
+            }
+
+            // 正在处理的请求数达到服务的并发上限，直接回复服务繁忙
+            AdaptiveConcurrencyLimiter limiter = getLimiter(providerConfig, rpcRequest.getServiceName());
+            if (limiter != null && !limiter.acquire()) {
+                queued.decrementAndGet();
+                reject(connection, header, rpcRequest, "服务繁忙：并发请求数超过上限", ProtocolMessageStatusEnum.SERVICE_BUSY);
+                return;
+            }
+
+            // 服务或方法的请求速率超过限流，直接回复被限流
+            // 在服务繁忙的检查之后获取令牌，因服务繁忙被拒绝的请求不消耗令牌
+            if (!RateLimiterRegistry.tryAcquire(rpcRequest.getServiceName(), rpcRequest.getMethodName())) {
+                queued.decrementAndGet();
+                if (limiter != null) {
+                    limiter.release(-1);
+                }
+                reject(connection, header, rpcRequest, "请求被限流：请求速率超过上限", ProtocolMessageStatusEnum.RATE_LIMITED);
+                return;
+            }
+
+            // 流方法在 I/O 线程登记，保证随后到达的流消息能找到流
+            InboundStream<?> inboundStream = registerStream(connection, header, rpcRequest);
+
+            // 分发到业务线程执行，排队期间超过截止时间或被取消的请求不再执行
+            RunningInvocation invocation = new RunningInvocation(limiter, receivedAt);
+            connection.getInvocations().put(header.getRequestId(), invocation);
+            connection.getInflightCount().incrementAndGet();
             try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.getDeclaredConstructor().newInstance(), rpcRequest.getArgs());
-                // 封装返回结果
+                dispatcher.dispatch(rpcRequest.getServiceName(), () -> {
+                    queued.decrementAndGet();
+                    long now = System.nanoTime();
+                    if (deadline != null && now - deadline > 0) {
+                        EXPIRED_COUNT.incrementAndGet();
+                        drop(connection, header, rpcRequest, invocation, "已超过截止时间");
+                        return;
+                    }
+                    long queueTimeout = providerConfig.getQueueTimeout();
+                    if (queueTimeout > 0 && now - receivedAt > TimeUnit.MILLISECONDS.toNanos(queueTimeout)) {
+                        drop(connection, header, rpcRequest, invocation, "排队超时");
+                        RateLimiterRegistry.release(rpcRequest.getServiceName(), rpcRequest.getMethodName());
+                        reject(connection, header, rpcRequest, "服务繁忙：排队时间超过上限",
+                                ProtocolMessageStatusEnum.SERVICE_BUSY);
+                        return;
+                    }
+                    if (!invocation.start()) {
+                        drop(connection, header, rpcRequest, invocation, "已取消");
+                        return;
+                    }
+                    try {
+                        doInvoke(connection, header, rpcRequest, inboundStream, deadline, invocation);
+                    } finally {
+                        invocation.finish();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 分发失败（线程池已关闭或已满），撤销登记的排队、请求和并发许可
+                // 只捕获分发时的拒绝：事件循环分发器在当前线程执行，执行中的异常不能重复撤销
+                log.error("请求分发失败：{}#{}", rpcRequest.getServiceName(), rpcRequest.getMethodName(), e);
+                queued.decrementAndGet();
+                drop(connection, header, rpcRequest, invocation, "分发失败");
+                RateLimiterRegistry.release(rpcRequest.getServiceName(), rpcRequest.getMethodName());
+                reject(connection, header, rpcRequest, "服务繁忙：请求分发失败", ProtocolMessageStatusEnum.SERVICE_BUSY);
+            }
+        }, rpcConfig.getMaxFrameLength(), rpcConfig.getMaxMessageLength(), e -> {
+            // 消息过大，不再读取，关闭连接
+            log.error("消息长度超过上限，关闭连接 {}", socket.remoteAddress(), e);
+            socket.close();
+        });
+        socket.handler(tcpBufferHandlerWrapper);
+        socket.closeHandler(v -> {
+            heartbeat.stop();
+            connection.closeStreams();
+        });
+        heartbeat.start(connection.getContext().owner());
+
+    }
+
+    /**
+     * 丢弃超过截止时间或已取消的请求：服务消费者不再等待，不执行也不响应，只释放登记的流
+     */
+    private void drop(TcpServerConnection connection, ProtocolMessage.Header header, RpcRequest rpcRequest,
+                      RunningInvocation invocation, String reason) {
+        log.debug("请求{}，丢弃：{}#{} requestId = {}", reason, rpcRequest.getServiceName(),
+                rpcRequest.getMethodName(), header.getRequestId());
+        connection.getInvocations().remove(header.getRequestId());
+        connection.getStreams().remove(header.getRequestId());
+        connection.closeInbound(header.getRequestId());
+        connection.getInflightCount().decrementAndGet();
+        invocation.release(false);
+    }
+
+    /**
+     * 请求无法执行（服务或方法不存在），回复错误（单向请求只记录日志）
+     */
+    private void doError(TcpServerConnection connection, ProtocolMessage.Header header, String message) {
+        if (isOneWay(header)) {
+            log.warn("单向请求无法执行：{}", message);
+            return;
+        }
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setMessage(message);
+        rpcResponse.setException(new RuntimeException(message));
+        doResponse(connection, header, rpcResponse);
+    }
+
+    /**
+     * 拒绝执行请求，回复服务繁忙或被限流（单向请求不回复），服务消费者可以换一个节点重试
+     */
+    private void reject(TcpServerConnection connection, ProtocolMessage.Header header, RpcRequest rpcRequest, String message,
+                        ProtocolMessageStatusEnum status) {
+        if (status == ProtocolMessageStatusEnum.RATE_LIMITED) {
+            RATE_LIMITED_COUNT.incrementAndGet();
+        } else {
+            REJECTED_COUNT.incrementAndGet();
+        }
+        log.debug("{}：{}#{} requestId = {}", message, rpcRequest.getServiceName(), rpcRequest.getMethodName(),
+                header.getRequestId());
+        if (isOneWay(header)) {
+            return;
+        }
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setMessage(message);
+        rpcResponse.setException(new RuntimeException(message));
+        doResponse(connection, header, rpcResponse, status);
+    }
+
+    /**
+     * 处理请求，通过生成的调用器调用服务实现
+     * 执行期间在调用上下文中保存截止时间，服务方法中再发起的调用使用剩余时间
+     *
+     * @param inboundStream 客户端流参数，没有为空
+     * @param deadline      截止时间（System.nanoTime），为空表示没有截止时间
+     * @param invocation    登记的请求，取消后不再响应
+     */
+    private void doInvoke(TcpServerConnection connection, ProtocolMessage.Header header, RpcRequest rpcRequest,
+                          InboundStream<?> inboundStream, Long deadline, RunningInvocation invocation) {
+        // 构造响应结果对象，单向请求不响应
+        boolean oneWay = isOneWay(header);
+        RpcResponse rpcResponse = oneWay ? null : new RpcResponse();
+        RpcContext.setDeadline(deadline);
+        try {
+            // 获取注册时解析好的服务实例和方法，通过生成的调用器调用
+            LocalService localService = LocalRegistry.getService(rpcRequest.getServiceName());
+            if (localService == null) {
+                throw new RuntimeException("服务不存在：" + rpcRequest.getServiceName());
+            }
+            LocalServiceMethod serviceMethod = localService.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+            if (serviceMethod == null) {
+                throw new RuntimeException("服务方法不存在：" + rpcRequest.getMethodName());
+            }
+            Object[] args = rpcRequest.getArgs();
+            if (rpcRequest.getMethodId() != null) {
+                // 请求未携带参数类型，按方法参数类型转换
+                args = getSerializer(header).convertArgs(args, serviceMethod.getParameterTypes());
+            }
+            if (inboundStream != null) {
+                args = args == null ? new Object[serviceMethod.getParameterTypes().length] : args.clone();
+                args[serviceMethod.getStreamParamIndex()] = inboundStream;
+            }
+            Object result = serviceMethod.getInvoker().invoke(localService.getInstance(), args);
+            // 服务端流：按服务消费者授予的额度逐个发送元素
+            if (serviceMethod.isStream()) {
+                ServerStream stream = connection.getStreams().get(header.getRequestId());
+                if (stream != null) {
+                    stream.start(result);
+                } else if (result instanceof AutoCloseable) {
+                    // 已取消
+                    ((AutoCloseable) result).close();
+                }
+                connection.getInvocations().remove(header.getRequestId());
+                connection.getInflightCount().decrementAndGet();
+                // 流的持续时间不反映服务的处理能力，不作为样本
+                invocation.release(false);
+                return;
+            }
+            // 异步方法：等待返回的 CompletableFuture 完成后再响应，不阻塞当前线程
+            if (result instanceof CompletableFuture) {
+                CompletableFuture<?> future = (CompletableFuture<?>) result;
+                future.whenComplete((data, e) -> {
+                    connection.getInvocations().remove(header.getRequestId());
+                    connection.getInflightCount().decrementAndGet();
+                    invocation.release(true);
+                    connection.closeInbound(header.getRequestId());
+                    if (oneWay) {
+                        if (e != null) {
+                            log.error("单向请求执行失败：{}#{}", rpcRequest.getServiceName(), rpcRequest.getMethodName(), e);
+                        }
+                    } else if (!invocation.isCancelled()) {
+                        doResponse(connection, header, buildAsyncResponse(data, e));
+                    }
+                });
+                invocation.setFuture(future);
+                return;
+            }
+            connection.closeInbound(header.getRequestId());
+            // 封装返回结果
+            if (!oneWay) {
                 rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
+                rpcResponse.setDataType(serviceMethod.getReturnType());
                 rpcResponse.setMessage("ok");
-            } catch (Exception e) {
-                e.printStackTrace();
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            connection.getStreams().remove(header.getRequestId());
+            connection.closeInbound(header.getRequestId());
+            if (!oneWay) {
                 rpcResponse.setMessage(e.getMessage());
-                rpcResponse.setException(e);
+                rpcResponse.setException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
             }
+        } finally {
+            RpcContext.clear();
+        }
+        connection.getInvocations().remove(header.getRequestId());
+        connection.getInflightCount().decrementAndGet();
+        invocation.release(true);
+        // 单向请求和已取消的请求，服务消费者不等待响应
+        if (!oneWay && !invocation.isCancelled()) {
+            doResponse(connection, header, rpcResponse);
+        }
+    }
 
-            // 发送响应，编码
-            header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
-            header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
-            ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
-            try {
-                Buffer encode = ProtocolMessageEncoder.encode(responseProtocolMessage);
-                socket.write(encode);
-            } catch (IOException e) {
-                throw new RuntimeException("协议消息编码错误");
+    /**
+     * 请求的是流方法时登记服务端流（调用完成后开始发送）和客户端流（立即授予初始额度）
+     *
+     * @return 客户端流，没有返回空
+     */
+    private InboundStream<?> registerStream(TcpServerConnection connection, ProtocolMessage.Header header, RpcRequest rpcRequest) {
+        LocalService localService = LocalRegistry.getService(rpcRequest.getServiceName());
+        LocalServiceMethod serviceMethod = localService == null ? null
+                : localService.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+        if (serviceMethod == null) {
+            return null;
+        }
+        if (serviceMethod.isStream()) {
+            connection.getStreams().put(header.getRequestId(),
+                    new ServerStream(connection, header, rpcRequest.getServiceName(), dispatcher));
+        }
+        if (serviceMethod.getStreamParamIndex() >= 0) {
+            return connection.openInbound(header, RpcApplication.getRpcConfig().getProviderConfig().getStreamWindow());
+        }
+        return null;
+    }
+
+    /**
+     * 处理服务消费者的流消息：
+     * STREAM_DATA 交给客户端流；STREAM_CREDIT 增加服务端流的额度；
+     * STREAM_END 为取消时停止服务端流，否则客户端流结束
+     */
+    private void doStreamControl(TcpServerConnection connection, ProtocolMessage.Header header, StreamMessage streamMessage) {
+        long requestId = header.getRequestId();
+        if (header.getType() == ProtocolMessageTypeEnum.STREAM_DATA.getKey()) {
+            InboundStream<?> inboundStream = connection.getInboundStreams().get(requestId);
+            if (inboundStream != null) {
+                inboundStream.onData(streamMessage);
             }
-        });
-        socket.handler(tcpBufferHandlerWrapper);
+            return;
+        }
+        if (header.getType() == ProtocolMessageTypeEnum.STREAM_END.getKey() && !streamMessage.isCancel()) {
+            InboundStream<?> inboundStream = connection.getInboundStreams().remove(requestId);
+            if (inboundStream != null) {
+                inboundStream.onEnd(streamMessage.getException());
+            }
+            return;
+        }
+        ServerStream stream = connection.getStreams().get(requestId);
+        if (stream == null) {
+            // 流已结束
+            return;
+        }
+        if (header.getType() == ProtocolMessageTypeEnum.STREAM_CREDIT.getKey()) {
+            stream.addCredit(streamMessage.getCredit());
+        } else {
+            stream.cancel();
+        }
+    }
+
+    /**
+     * 获取服务的自适应并发限制，未开启返回空
+     */
+    private static AdaptiveConcurrencyLimiter getLimiter(ProviderConfig providerConfig, String serviceName) {
+        if (!providerConfig.isAdaptiveConcurrency() || serviceName == null) {
+            return null;
+        }
+        return CONCURRENCY_LIMITERS.computeIfAbsent(serviceName, key -> new AdaptiveConcurrencyLimiter(
+                providerConfig.getInitialConcurrency(), providerConfig.getMinConcurrency(),
+                providerConfig.getMaxConcurrency()));
+    }
+
+    /**
+     * 是否单向请求
+     */
+    private static boolean isOneWay(ProtocolMessage.Header header) {
+        return header.getStatus() == ProtocolConstant.REQUEST_ONE_WAY;
+    }
+
+    /**
+     * 处理服务消费者的取消：排队中的请求不再执行，执行中的请求按配置中断线程，服务端流停止发送
+     */
+    private void doCancel(TcpServerConnection connection, long requestId) {
+        RunningInvocation invocation = connection.getInvocations().get(requestId);
+        if (invocation != null) {
+            CANCELLED_COUNT.incrementAndGet();
+            invocation.cancel(RpcApplication.getRpcConfig().getProviderConfig().isInterruptOnCancel());
+        }
+        ServerStream stream = connection.getStreams().get(requestId);
+        if (stream != null) {
+            stream.cancel();
+        }
+    }
 
+    /**
+     * 按方法ID补全请求，方法不存在返回 false
+     */
+    private boolean resolveMethodId(RpcRequest rpcRequest) {
+        LocalService localService = LocalRegistry.getServiceByMethodId(rpcRequest.getMethodId());
+        LocalServiceMethod serviceMethod = localService == null ? null : localService.getMethod(rpcRequest.getMethodId());
+        if (serviceMethod == null) {
+            return false;
+        }
+        rpcRequest.setServiceName(localService.getServiceName());
+        rpcRequest.setMethodName(serviceMethod.getMethod().getName());
+        rpcRequest.setParameterTypes(serviceMethod.getParameterTypes());
+        return true;
+    }
+
+    /**
+     * 回复握手，发送本进程导出的方法ID表、支持的压缩器、分片大小和心跳周期，并协商响应使用的压缩器和分片大小
+     */
+    private void doHandshake(TcpServerConnection connection, ProtocolMessage.Header header, HandshakeMessage handshakeMessage) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        connection.setCompressor((byte) ProtocolMessageCompressorEnum.negotiate(
+                rpcConfig.getCompressor(), handshakeMessage.getCompressors()).getKey());
+        connection.setFragmentSize(HandshakeMessage.negotiateFragmentSize(rpcConfig.getFragmentSize(),
+                handshakeMessage.getFragmentSize()));
+        if (handshakeMessage.getHeartbeatInterval() > 0) {
+            connection.getHeartbeat().enableHeartbeat();
+        }
+        connection.setCompressed(true);
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setCompressor((byte) ProtocolMessageCompressorEnum.NONE.getKey());
+        ProtocolMessage<HandshakeMessage> handshakeProtocolMessage = new ProtocolMessage<>(header,
+                new HandshakeMessage(LocalRegistry.getMethodIds(), ProtocolMessageCompressorEnum.getAvailableValues(),
+                        rpcConfig.getFragmentSize(), rpcConfig.getHeartbeatInterval(), true, true, true));
+        try {
+            ProtocolMessageEncoder.write(connection.getWriteQueue(), handshakeProtocolMessage);
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误");
+        }
+    }
+
+    public static long getExpiredCount() {
+        return EXPIRED_COUNT.get();
+    }
+
+    public static long getRejectedCount() {
+        return REJECTED_COUNT.get();
+    }
+
+    public static long getRateLimitedCount() {
+        return RATE_LIMITED_COUNT.get();
+    }
+
+    public static long getCancelledCount() {
+        return CANCELLED_COUNT.get();
+    }
+
+    /**
+     * 服务的自适应并发限制（当前上限、正在处理的请求数、拒绝数），未开启或还没有请求时返回空
+     */
+    public static AdaptiveConcurrencyLimiter getConcurrencyLimiter(String serviceName) {
+        return CONCURRENCY_LIMITERS.get(serviceName);
+    }
+
+    private Serializer getSerializer(ProtocolMessage.Header header) {
+        ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
+        if (serializerEnum == null) {
+            throw new RuntimeException("序列化消息的协议不存在");
+        }
+        return SerializerFactory.getInstance(serializerEnum.getValue());
+    }
+
+    /**
+     * 发送响应，切回 I/O 线程编码，放入连接的写队列与同一轮事件循环的其他响应合并写入
+     */
+    private void doResponse(TcpServerConnection connection, ProtocolMessage.Header header, RpcResponse rpcResponse) {
+        doResponse(connection, header, rpcResponse, ProtocolMessageStatusEnum.OK);
+    }
+
+    private void doResponse(TcpServerConnection connection, ProtocolMessage.Header header, RpcResponse rpcResponse,
+                            ProtocolMessageStatusEnum status) {
+        Context context = connection.getContext();
+        if (Vertx.currentContext() != context) {
+            context.runOnContext(v -> doResponse(connection, header, rpcResponse, status));
+            return;
+        }
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        header.setStatus((byte) status.getValue());
+        header.setCompressor(connection.getCompressor());
+        header.setFragmentSize(connection.getFragmentSize());
+        ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
+        try {
+            ProtocolMessageEncoder.write(connection.getWriteQueue(), responseProtocolMessage);
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误");
+        }
+    }
+
+    /**
+     * 根据异步方法的执行结果构造响应，数据类型取实际返回值的类型
+     */
+    private RpcResponse buildAsyncResponse(Object data, Throwable e) {
+        RpcResponse rpcResponse = new RpcResponse();
+        if (e != null) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            rpcResponse.setMessage(cause.getMessage());
+            rpcResponse.setException(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+            return rpcResponse;
+        }
+        rpcResponse.setData(data);
+        rpcResponse.setDataType(data == null ? null : data.getClass());
+        rpcResponse.setMessage("ok");
+        return rpcResponse;
     }
 }
@@ -2,22 +2,24 @@ package com.czh.example.server.tcp;
 
 import cn.hutool.core.util.IdUtil;
 import com.czh.example.application.RpcApplication;
+import com.czh.example.config.ConsumerConfig;
 import com.czh.example.model.RpcRequest;
 import com.czh.example.model.RpcResponse;
 import com.czh.example.model.ServiceMetaInfo;
 import com.czh.example.protocol.*;
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
-import io.vertx.core.net.NetSocket;
-import lombok.extern.slf4j.Slf4j;
+import io.vertx.core.net.NetClientOptions;
 
-import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 /**
  * TCP 客户端实现
+ * 全局共享一个 Vert.x 实例和 NetClient，按服务提供者地址维护长连接池，请求在连接上多路复用
  *
  * @author czh
  * @version 1.0.0
@@ -25,60 +27,164 @@ import java.util.concurrent.ExecutionException;
  */
 public class VertxTcpClient {
 
+    private static final Vertx VERTX = Vertx.vertx();
+
+    private static final NetClient NET_CLIENT = VERTX.createNetClient(new NetClientOptions()
+            .setTcpNoDelay(true)
+            .setTcpKeepAlive(true)
+            .setConnectTimeout(RpcApplication.getRpcConfig().getConsumerConfig().getConnectTimeout()));
+
+    /**
+     * 连接池：host:port -> 连接池
+     */
+    private static final Map<String, TcpConnectionPool> CONNECTION_POOL_MAP = new ConcurrentHashMap<>();
+
     public static RpcResponse doRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo)
             throws InterruptedException, ExecutionException {
-        //发送TCP请求
-        Vertx vertx = Vertx.vertx();
-        //创建TCP客户端
-        NetClient netClient = vertx.createNetClient();
-        //连接TCP服务器
-        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
-        netClient.connect(serviceMetaInfo.getServicePort(), serviceMetaInfo.getServiceHost(),
-                result -> {
-                    if (!result.succeeded()) {
-                        System.out.println("TPC连接失败");
-                        return;
-                    }
-                    //连接成功
-                    NetSocket socket = result.result();
-//           发送数据
-//            构造消息
-                    ProtocolMessage<RpcRequest> protocolMessage = new ProtocolMessage<>();
-                    ProtocolMessage.Header header = new ProtocolMessage.Header();
-                    header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
-                    header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
-                    header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer()).getKey());
-                    header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
-                    //生成全局请求ID
-                    header.setRequestId(IdUtil.getSnowflakeNextId());
-                    protocolMessage.setHeader(header);
-                    protocolMessage.setBody(rpcRequest);
-
-                    //编码请求
-                    try {
-                        Buffer encodeBuffer = ProtocolMessageEncoder.encode(protocolMessage);
-                        socket.write(encodeBuffer);
-                    } catch (IOException e) {
-                        throw new RuntimeException("协议消息编码错误");
-                    }
-
-
-//            接收响应
-                    TcpBufferHandlerWrapper bufferHandlerWrapper = new TcpBufferHandlerWrapper(buffer -> {
-                        try {
-                            ProtocolMessage<RpcResponse> rpcResponseProtocolMessage = (ProtocolMessage<RpcResponse>) ProtocolMessageDecoder.decode(buffer);
-                            //处理响应
-                            responseFuture.complete(rpcResponseProtocolMessage.getBody());
-                        } catch (IOException e) {
-                            throw new RuntimeException("协议消息解码错误");
-                        }
-                    });
-                    socket.handler(bufferHandlerWrapper);
+        return doRequestAsync(rpcRequest, null, serviceMetaInfo).get();
+    }
+
+    public static RpcResponse doRequest(RpcRequest rpcRequest, String methodKey, ServiceMetaInfo serviceMetaInfo)
+            throws InterruptedException, ExecutionException {
+        return doRequestAsync(rpcRequest, methodKey, serviceMetaInfo).get();
+    }
+
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo) {
+        return doRequestAsync(rpcRequest, null, serviceMetaInfo);
+    }
+
+    /**
+     * 异步发送请求，收到响应帧时完成
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     */
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, String methodKey,
+                                                                ServiceMetaInfo serviceMetaInfo) {
+        ProtocolMessage<RpcRequest> protocolMessage = buildProtocolMessage(rpcRequest);
+        //从连接池获取连接并发送
+        CompletableFuture<TcpConnection> connectionFuture = getConnectionPool(serviceMetaInfo).acquire();
+        //连接已就绪时直接返回等待响应的 Future，调用方取消时可以通知服务提供者
+        if (connectionFuture.isDone() && !connectionFuture.isCompletedExceptionally()) {
+            TcpConnection connection = connectionFuture.join();
+            RuntimeException e = awaitWritable(connection, getTimeout(rpcRequest));
+            if (e != null) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return connection.send(protocolMessage, methodKey, getTimeout(rpcRequest));
+        }
+        return connectionFuture.thenCompose(connection -> connection.send(protocolMessage, methodKey, getTimeout(rpcRequest)));
+    }
+
+    /**
+     * 发送单向请求，请求写入连接后完成，不等待响应
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     */
+    public static CompletableFuture<Void> doOneWay(RpcRequest rpcRequest, String methodKey, ServiceMetaInfo serviceMetaInfo) {
+        ProtocolMessage<RpcRequest> protocolMessage = buildProtocolMessage(rpcRequest);
+        protocolMessage.getHeader().setStatus(ProtocolConstant.REQUEST_ONE_WAY);
+        return getConnectionPool(serviceMetaInfo).acquire()
+                .thenCompose(connection -> {
+                    RuntimeException e = awaitWritable(connection, getTimeout(rpcRequest));
+                    return e != null ? CompletableFuture.failedFuture(e) : connection.sendOneWay(protocolMessage, methodKey);
                 });
+    }
+
+    /**
+     * 背压：连接的写队列超过高水位线时，调用线程等待恢复可写（I/O 线程不等待）
+     *
+     * @return 等待超时或被中断时返回失败原因，可以发送返回 null
+     */
+    private static RuntimeException awaitWritable(TcpConnection connection, long timeoutMillis) {
+        if (connection.isWritable() || Context.isOnEventLoopThread()) {
+            return null;
+        }
+        try {
+            if (connection.awaitWritable(timeoutMillis)) {
+                return null;
+            }
+            return new RuntimeException("连接写队列已满，等待超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RuntimeException("等待连接可写时被中断", e);
+        }
+    }
+
+    /**
+     * 发起服务端流或双向流调用，返回的流按额度从服务提供者拉取元素
+     * 在调用线程获取连接并发送，绑定通道时可能等待额度，不能在 I/O 线程执行
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     * @param channel   双向流的发送通道，服务端流为空
+     */
+    public static <T> InboundStream<T> doStream(RpcRequest rpcRequest, String methodKey, ServiceMetaInfo serviceMetaInfo,
+                                                StreamChannel<?> channel) throws InterruptedException, ExecutionException {
+        ProtocolMessage<RpcRequest> protocolMessage = buildProtocolMessage(rpcRequest);
+        ConsumerConfig consumerConfig = RpcApplication.getRpcConfig().getConsumerConfig();
+        TcpConnection connection = getConnectionPool(serviceMetaInfo).acquire().get();
+        return connection.openStream(protocolMessage, methodKey, consumerConfig.getStreamWindow(),
+                getTimeout(rpcRequest), channel);
+    }
+
+    /**
+     * 发起客户端流调用，请求发出后通道中的元素按额度发送，收到响应帧时完成
+     * 上传时间不可预估，不设置响应超时，连接断开时失败
+     *
+     * @param methodKey 方法ID表的键（预先计算），为空时按请求计算
+     */
+    public static CompletableFuture<RpcResponse> doClientStream(RpcRequest rpcRequest, String methodKey,
+                                                                ServiceMetaInfo serviceMetaInfo, StreamChannel<?> channel)
+            throws InterruptedException, ExecutionException {
+        ProtocolMessage<RpcRequest> protocolMessage = buildProtocolMessage(rpcRequest);
+        TcpConnection connection = getConnectionPool(serviceMetaInfo).acquire().get();
+        return connection.send(protocolMessage, methodKey, 0, channel);
+    }
+
+    /**
+     * 等待响应的超时时间：请求携带的超时时间（与服务提供者的截止时间一致），没有时使用全局配置
+     */
+    private static long getTimeout(RpcRequest rpcRequest) {
+        return rpcRequest.getTimeout() != null ? rpcRequest.getTimeout()
+                : RpcApplication.getRpcConfig().getConsumerConfig().getRequestTimeout();
+    }
+
+    private static ProtocolMessage<RpcRequest> buildProtocolMessage(RpcRequest rpcRequest) {
+        //构造消息
+        ProtocolMessage<RpcRequest> protocolMessage = new ProtocolMessage<>();
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer()).getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        //生成全局请求ID，用于在共享连接上匹配响应
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        protocolMessage.setHeader(header);
+        protocolMessage.setBody(rpcRequest);
+        return protocolMessage;
+    }
+
+    /**
+     * 服务提供者地址是否可用，心跳检测到失效或连接失败的地址在一段时间内不可用
+     */
+    public static boolean isAvailable(ServiceMetaInfo serviceMetaInfo) {
+        TcpConnectionPool connectionPool = CONNECTION_POOL_MAP.get(serviceMetaInfo.getServiceHostPort());
+        return connectionPool == null || connectionPool.isAvailable();
+    }
+
+    private static TcpConnectionPool getConnectionPool(ServiceMetaInfo serviceMetaInfo) {
+        return CONNECTION_POOL_MAP.computeIfAbsent(serviceMetaInfo.getServiceHostPort(), key -> {
+            ConsumerConfig consumerConfig = RpcApplication.getRpcConfig().getConsumerConfig();
+            return new TcpConnectionPool(NET_CLIENT, serviceMetaInfo.getServiceHost(),
+                    serviceMetaInfo.getServicePort(), consumerConfig.getMaxConnectionsPerAddress());
+        });
+    }
 
-        RpcResponse rpcResponse = responseFuture.get();
-        //关闭连接
-        netClient.close();
-        return rpcResponse;
+    /**
+     * 关闭所有连接
+     */
+    public static void destroy() {
+        CONNECTION_POOL_MAP.values().forEach(TcpConnectionPool::close);
+        CONNECTION_POOL_MAP.clear();
+        NET_CLIENT.close();
     }
 }
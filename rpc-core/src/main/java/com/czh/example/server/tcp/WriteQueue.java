@@ -0,0 +1,208 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.protocol.FrameWriter;
+import com.czh.example.utils.BufferUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 连接的写队列（写合并 + 水位线）
+ * 同一轮事件循环内写入的消息帧先放入队列，在连接所属的 I/O 上下文中合并为一个缓冲区（组合，不复制）写入，
+ * 多个小消息只触发一次写入和 flush
+ * 未写完的字节数（队列中 + 已交给 Socket 未完成）超过高水位线时不可写，回落到低水位线以下时恢复可写，
+ * 可写状态变化通知连接（服务提供者暂停读取），调用方也可以等待恢复可写
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 10:00
+ */
+public class WriteQueue implements FrameWriter {
+
+    /**
+     * 一次合并写入的最大字节数，超过时分多次写入
+     */
+    private static final int MAX_FLUSH_BYTES = 1024 * 1024;
+
+    private final NetSocket socket;
+
+    private final Context context;
+
+    private final long highWatermark;
+
+    private final long lowWatermark;
+
+    private final Queue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 未写完的字节数
+     */
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /**
+     * 是否已安排合并写入
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile boolean writable = true;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition writableCondition = lock.newCondition();
+
+    /**
+     * 可写状态变化的回调，参数为是否可写
+     */
+    private volatile Consumer<Boolean> writabilityHandler;
+
+    public WriteQueue(NetSocket socket, Context context, long highWatermark, long lowWatermark) {
+        this.socket = socket;
+        this.context = context;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = Math.min(lowWatermark, highWatermark);
+    }
+
+    /**
+     * 放入队列（可以在任意线程调用），写入完成时返回的结果完成
+     */
+    @Override
+    public Future<Void> write(Buffer buffer) {
+        Promise<Void> promise = Promise.promise();
+        queue.offer(new PendingWrite(buffer, promise));
+        long bytes = pendingBytes.addAndGet(buffer.length());
+        if (highWatermark > 0 && bytes >= highWatermark && writable) {
+            setWritable(false);
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            context.runOnContext(v -> flush());
+        }
+        return promise.future();
+    }
+
+    /**
+     * 合并队列中的消息帧写入 Socket（I/O 线程）
+     */
+    private void flush() {
+        scheduled.set(false);
+        PendingWrite pendingWrite = queue.poll();
+        while (pendingWrite != null) {
+            List<ByteBuf> buffers = new ArrayList<>();
+            List<Promise<Void>> promises = new ArrayList<>();
+            int bytes = 0;
+            while (pendingWrite != null) {
+                buffers.add(BufferUtil.unwrap(pendingWrite.buffer));
+                promises.add(pendingWrite.promise);
+                bytes += pendingWrite.buffer.length();
+                if (bytes >= MAX_FLUSH_BYTES) {
+                    break;
+                }
+                pendingWrite = queue.poll();
+            }
+            writeMerged(buffers, promises, bytes);
+            pendingWrite = bytes >= MAX_FLUSH_BYTES ? queue.poll() : null;
+        }
+    }
+
+    private void writeMerged(List<ByteBuf> buffers, List<Promise<Void>> promises, int bytes) {
+        Buffer merged = buffers.size() == 1 ? BufferUtil.wrap(buffers.get(0))
+                : BufferUtil.wrap(Unpooled.wrappedBuffer(buffers.toArray(new ByteBuf[0])));
+        socket.write(merged).onComplete(result -> {
+            for (Promise<Void> promise : promises) {
+                promise.handle(result);
+            }
+            long remaining = pendingBytes.addAndGet(-bytes);
+            if (!writable && remaining <= lowWatermark) {
+                setWritable(true);
+            }
+        });
+    }
+
+    private void setWritable(boolean writable) {
+        lock.lock();
+        try {
+            if (this.writable == writable) {
+                return;
+            }
+            this.writable = writable;
+            if (writable) {
+                writableCondition.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        Consumer<Boolean> handler = writabilityHandler;
+        if (handler != null) {
+            handler.accept(writable);
+        }
+    }
+
+    /**
+     * 等待恢复可写（不能在 I/O 线程调用）
+     *
+     * @return 超时仍不可写返回 false
+     */
+    public boolean awaitWritable(long timeoutMillis) throws InterruptedException {
+        if (writable) {
+            return true;
+        }
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (!writable) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = writableCondition.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 连接关闭，唤醒等待可写的调用方（随后发送会因连接关闭而失败）
+     */
+    public void close() {
+        setWritable(true);
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    public void writabilityHandler(Consumer<Boolean> writabilityHandler) {
+        this.writabilityHandler = writabilityHandler;
+    }
+
+    private static class PendingWrite {
+
+        private final Buffer buffer;
+
+        private final Promise<Void> promise;
+
+        private PendingWrite(Buffer buffer, Promise<Void> promise) {
+            this.buffer = buffer;
+            this.promise = promise;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.czh.example.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Vert.x Buffer 与 Netty ByteBuf 的转换工具类
+ * 编解码、帧拆分和写队列都直接操作 ByteBuf（切片、组合，不复制），转换集中在这里
+ * Vert.x 4.5.1 中 Buffer.buffer(ByteBuf) 和 Buffer.getByteBuf() 已标记过时，但替代的 BufferInternal 从更高版本才提供；
+ * getByteBuf() 对非 Vert.x 分配的缓冲区（如编码缓冲区池中的缓冲区）返回不可释放的切片，Netty 写完后不会释放池中的缓冲区，
+ * 需要保留这一行为，因此在这里统一使用并屏蔽过时警告，升级 Vert.x 后改用 BufferInternal
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/28 16:30
+ */
+@SuppressWarnings("deprecation")
+public class BufferUtil {
+
+    /**
+     * 包装 ByteBuf，不复制
+     */
+    public static Buffer wrap(ByteBuf byteBuf) {
+        return Buffer.buffer(byteBuf);
+    }
+
+    /**
+     * 取出 Buffer 的内容（切片，不复制）
+     */
+    public static ByteBuf unwrap(Buffer buffer) {
+        return buffer.getByteBuf();
+    }
+}
@@ -0,0 +1,90 @@
+package com.czh.example.compress;
+
+import cn.hutool.core.util.IdUtil;
+import com.czh.example.factory.CompressorFactory;
+import com.czh.example.model.RpcResponse;
+import com.czh.example.protocol.*;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 压缩器测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/22 14:00
+ */
+public class CompressorTest {
+
+    @Test
+    public void deflateAvailable() {
+        // JDK 自带，任何平台都可用
+        Assert.assertTrue(CompressorFactory.isAvailable(CompressorConstant.DEFLATE));
+        Assert.assertTrue(ProtocolMessageCompressorEnum.getAvailableValues().contains(CompressorConstant.DEFLATE));
+    }
+
+    @Test
+    public void negotiate() {
+        List<String> peerCompressors = Arrays.asList(CompressorConstant.DEFLATE, CompressorConstant.LZ4);
+        Assert.assertEquals(ProtocolMessageCompressorEnum.DEFLATE,
+                ProtocolMessageCompressorEnum.negotiate(CompressorConstant.DEFLATE, peerCompressors));
+        Assert.assertEquals(ProtocolMessageCompressorEnum.NONE,
+                ProtocolMessageCompressorEnum.negotiate(CompressorConstant.ZSTD, peerCompressors));
+        // 旧版本对端不告知压缩器
+        Assert.assertEquals(ProtocolMessageCompressorEnum.NONE,
+                ProtocolMessageCompressorEnum.negotiate(CompressorConstant.DEFLATE, null));
+    }
+
+    @Test
+    public void decodeCompressedBody() throws IOException {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JSON.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setMessage("ok".repeat(1000));
+        Buffer frame = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcResponse));
+
+        // 手动压缩消息体，序列化器字节高 4 位标记压缩器
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = CompressorFactory.getInstance(CompressorConstant.DEFLATE).compress(byteArrayOutputStream)) {
+            outputStream.write(frame.getBytes(ProtocolConstant.MESSAGE_HEADER_LENGTH, frame.length()));
+        }
+        byte[] compressedBody = byteArrayOutputStream.toByteArray();
+        Assert.assertTrue(compressedBody.length < frame.length() - ProtocolConstant.MESSAGE_HEADER_LENGTH);
+        Buffer compressedFrame = frame.getBuffer(0, ProtocolConstant.MESSAGE_HEADER_LENGTH)
+                .setByte(2, (byte) ((ProtocolMessageCompressorEnum.DEFLATE.getKey() << 4) | header.getSerializer()))
+                .setInt(13, compressedBody.length)
+                .appendBytes(compressedBody);
+
+        ProtocolMessage<?> message = ProtocolMessageDecoder.decode(compressedFrame, Integer.MAX_VALUE, true);
+        Assert.assertEquals(ProtocolMessageSerializerEnum.JSON.getKey(), message.getHeader().getSerializer());
+        Assert.assertEquals(ProtocolMessageCompressorEnum.DEFLATE.getKey(), message.getHeader().getCompressor());
+        Assert.assertEquals(rpcResponse.getMessage(), ((RpcResponse) message.getBody()).getMessage());
+
+        // 未握手协商压缩的连接不接受压缩的消息
+        try {
+            ProtocolMessageDecoder.decode(compressedFrame);
+            Assert.fail("未协商的压缩器应拒绝");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains(CompressorConstant.DEFLATE));
+        }
+
+        // 解压后超过消息长度上限
+        try {
+            ProtocolMessageDecoder.decode(compressedFrame, 1024, true);
+            Assert.fail("解压后超过上限应失败");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("超过上限"));
+        }
+    }
+}
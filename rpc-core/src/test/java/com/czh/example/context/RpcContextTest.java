@@ -0,0 +1,42 @@
+package com.czh.example.context;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 调用上下文测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 10:30
+ */
+public class RpcContextTest {
+
+    @After
+    public void clear() {
+        RpcContext.clear();
+    }
+
+    @Test
+    public void noDeadline() {
+        Assert.assertEquals(-1, RpcContext.getRemainingMillis());
+        RpcContext.setDeadline(RpcContext.deadlineOf(0));
+        Assert.assertEquals(-1, RpcContext.getRemainingMillis());
+    }
+
+    @Test
+    public void remainingMillis() {
+        RpcContext.setDeadline(RpcContext.deadlineOf(10_000));
+        long remaining = RpcContext.getRemainingMillis();
+        Assert.assertTrue(remaining > 9_000 && remaining <= 10_000);
+        RpcContext.clear();
+        Assert.assertEquals(-1, RpcContext.getRemainingMillis());
+    }
+
+    @Test
+    public void expired() {
+        RpcContext.setDeadline(System.nanoTime() - 1_000_000L);
+        Assert.assertEquals(0, RpcContext.getRemainingMillis());
+    }
+}
@@ -1,9 +1,16 @@
 package com.czh.example.fault.retry;
 
+import com.czh.example.fault.RpcDeadlineExceededException;
 import com.czh.example.model.RpcResponse;
 import junit.framework.TestCase;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author czh
  * @version 1.0.0
@@ -26,4 +33,34 @@ public class RetryStrategyTest{
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void noRetryAfterDeadline() throws Exception {
+        FixedIntervalRetryStrategy fixedIntervalRetryStrategy = new FixedIntervalRetryStrategy();
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            fixedIntervalRetryStrategy.doRetry(() -> {
+                attempts.incrementAndGet();
+                // 同步调用通过 Future.get() 等待，异常被 ExecutionException 包装
+                throw new ExecutionException(new RpcDeadlineExceededException("调用已超过截止时间"));
+            });
+            Assert.fail("超过截止时间应失败");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(RpcDeadlineExceededException.isCause(e));
+        }
+        Assert.assertEquals(1, attempts.get());
+
+        attempts.set(0);
+        CompletableFuture<RpcResponse> future = fixedIntervalRetryStrategy.doRetryAsync(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new RpcDeadlineExceededException("调用已超过截止时间"));
+        });
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail("超过截止时间应失败");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RpcDeadlineExceededException);
+        }
+        Assert.assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,78 @@
+package com.czh.example.invoker;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法调用器基准测试：反射、MethodHandle、LambdaMetafactory 与直接调用对比
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 14:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodInvokerBenchmark {
+
+    public static class CalculateService {
+
+        public Integer add(Integer a, Integer b) {
+            return a + b;
+        }
+    }
+
+    private final CalculateService target = new CalculateService();
+
+    private final Object[] args = {1, 2};
+
+    private MethodInvoker reflectInvoker;
+
+    private MethodInvoker methodHandleInvoker;
+
+    private MethodInvoker lambdaInvoker;
+
+    @Setup
+    public void setup() throws Exception {
+        Method method = CalculateService.class.getMethod("add", Integer.class, Integer.class);
+        reflectInvoker = new ReflectInvokerGenerator().generate(method);
+        methodHandleInvoker = new MethodHandleInvokerGenerator().generate(method);
+        lambdaInvoker = new LambdaInvokerGenerator().generate(method);
+    }
+
+    @Benchmark
+    public Object direct() {
+        return target.add((Integer) args[0], (Integer) args[1]);
+    }
+
+    @Benchmark
+    public Object reflect() throws Throwable {
+        return reflectInvoker.invoke(target, args);
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        return methodHandleInvoker.invoke(target, args);
+    }
+
+    @Benchmark
+    public Object lambda() throws Throwable {
+        return lambdaInvoker.invoke(target, args);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MethodInvokerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,55 @@
+package com.czh.example.invoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+/**
+ * 方法调用器测试：各生成器调用结果与异常透传
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/17 14:40
+ */
+public class MethodInvokerTest {
+
+    public static class GreetService {
+
+        public String greet(String name, Integer times) {
+            return ("hello " + name).repeat(times);
+        }
+
+        public void fail(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private final InvokerGenerator[] generators = {
+            new ReflectInvokerGenerator(), new MethodHandleInvokerGenerator(), new LambdaInvokerGenerator()
+    };
+
+    @Test
+    public void invoke() throws Throwable {
+        Method method = GreetService.class.getMethod("greet", String.class, Integer.class);
+        for (InvokerGenerator generator : generators) {
+            MethodInvoker invoker = generator.generate(method);
+            Assert.assertEquals("hello czhhello czh", invoker.invoke(new GreetService(), new Object[]{"czh", 2}));
+        }
+    }
+
+    @Test
+    public void invokeThrows() throws Exception {
+        Method method = GreetService.class.getMethod("fail", String.class);
+        for (InvokerGenerator generator : generators) {
+            MethodInvoker invoker = generator.generate(method);
+            try {
+                invoker.invoke(new GreetService(), new Object[]{"error"});
+                Assert.fail();
+            } catch (Throwable e) {
+                Assert.assertTrue(e instanceof IllegalStateException);
+                Assert.assertEquals("error", e.getMessage());
+            }
+        }
+    }
+}
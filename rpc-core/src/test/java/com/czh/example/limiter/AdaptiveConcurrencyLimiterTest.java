@@ -0,0 +1,82 @@
+package com.czh.example.limiter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应并发限制测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 16:40
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void rejectOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        Assert.assertTrue(limiter.acquire());
+        Assert.assertTrue(limiter.acquire());
+        Assert.assertFalse(limiter.acquire());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+        Assert.assertEquals(2, limiter.getInflight());
+        limiter.release(-1);
+        Assert.assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void growWhenLatencyStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 1000);
+        for (int i = 0; i < 10; i++) {
+            fullWindow(limiter, FAST);
+        }
+        Assert.assertTrue(limiter.getLimit() > 20);
+        Assert.assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void shrinkWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 4, 1000);
+        for (int i = 0; i < 5; i++) {
+            fullWindow(limiter, FAST);
+        }
+        int limit = limiter.getLimit();
+        for (int i = 0; i < 10; i++) {
+            fullWindow(limiter, SLOW);
+        }
+        Assert.assertTrue(limiter.getLimit() < limit);
+        Assert.assertTrue(limiter.getLimit() >= 4);
+    }
+
+    @Test
+    public void notGrowWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 1000);
+        for (int i = 0; i < 500; i++) {
+            Assert.assertTrue(limiter.acquire());
+            limiter.release(FAST);
+        }
+        Assert.assertEquals(20, limiter.getLimit());
+    }
+
+    /**
+     * 用满并发上限完成一个窗口的请求
+     */
+    private static void fullWindow(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int released = 0;
+        while (released < 50) {
+            int acquired = 0;
+            while (limiter.acquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(released++ < 50 ? rttNanos : -1);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.czh.example.limiter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 令牌桶限流测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 19:30
+ */
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    public void rejectAfterBurst() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void refill() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 1);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        Thread.sleep(50);
+        Assert.assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void releaseToken() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1);
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.release();
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        // 令牌桶已满时归还不增加容量
+        TokenBucketRateLimiter full = new TokenBucketRateLimiter(1, 1);
+        full.release();
+        Assert.assertTrue(full.tryAcquire());
+        Assert.assertFalse(full.tryAcquire());
+    }
+
+    @Test
+    public void fallbackToOtherStripes() {
+        // 单个线程只散列到一个分段（125 个令牌），其他分段的令牌也能获取到
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000, 1000, 8);
+        Assert.assertEquals(8, limiter.getStripeCount());
+        int acquired = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.tryAcquire()) {
+                acquired++;
+            }
+        }
+        Assert.assertEquals(1000, acquired);
+    }
+
+    @Test
+    public void concurrentAcquireNotOverBurst() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000, 1000, 8);
+        Assert.assertEquals(8, limiter.getStripeCount());
+        AtomicInteger acquired = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch latch = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    if (limiter.tryAcquire()) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 各线程共获取的令牌数不超过容量加上测试期间补充的令牌（每个分段取整多补一个）
+        Assert.assertTrue(acquired.get() <= 1000 + elapsedMillis + 8);
+        Assert.assertTrue(acquired.get() >= 1000);
+    }
+
+    @Test
+    public void registryServiceAndMethod() {
+        String serviceName = "com.czh.example.TestService";
+        RateLimiterRegistry.setServiceLimit(serviceName, 1);
+        RateLimiterRegistry.setMethodLimit(serviceName, "hello", 1);
+        try {
+            Assert.assertTrue(RateLimiterRegistry.tryAcquire("com.czh.example.OtherService", "hello"));
+            Assert.assertTrue(RateLimiterRegistry.tryAcquire(serviceName, "hello"));
+            // 方法的令牌已用完
+            Assert.assertFalse(RateLimiterRegistry.tryAcquire(serviceName, "hello"));
+            // 服务的令牌已用完
+            Assert.assertFalse(RateLimiterRegistry.tryAcquire(serviceName, "world"));
+            // 被服务限流拒绝时归还方法的令牌
+            RateLimiterRegistry.setMethodLimit(serviceName, "world", 1);
+            Assert.assertFalse(RateLimiterRegistry.tryAcquire(serviceName, "world"));
+            Assert.assertTrue(RateLimiterRegistry.getMethodLimiter(serviceName, "world").tryAcquire());
+            // 请求因服务繁忙没有执行，归还方法和服务的令牌
+            RateLimiterRegistry.release(serviceName, "hello");
+            Assert.assertTrue(RateLimiterRegistry.tryAcquire(serviceName, "hello"));
+            Assert.assertNotNull(RateLimiterRegistry.getMethodLimiter(serviceName, "hello"));
+        } finally {
+            RateLimiterRegistry.remove(serviceName);
+        }
+        Assert.assertTrue(RateLimiterRegistry.tryAcquire(serviceName, "hello"));
+    }
+
+    @Test
+    public void reloadConfigLimits() {
+        String serviceName = "com.czh.example.ConfigService";
+        try {
+            RateLimiterRegistry.setLimits(Map.of(serviceName, 10, serviceName + "#hello", 5));
+            Assert.assertNotNull(RateLimiterRegistry.getServiceLimiter(serviceName));
+            Assert.assertNotNull(RateLimiterRegistry.getMethodLimiter(serviceName, "hello"));
+            // 新配置中去掉的限流不再生效
+            RateLimiterRegistry.setLimits(Map.of(serviceName, 20));
+            Assert.assertEquals(20, RateLimiterRegistry.getServiceLimiter(serviceName).getPermitsPerSecond());
+            Assert.assertNull(RateLimiterRegistry.getMethodLimiter(serviceName, "hello"));
+        } finally {
+            RateLimiterRegistry.setLimits(null);
+        }
+        Assert.assertNull(RateLimiterRegistry.getServiceLimiter(serviceName));
+    }
+}
@@ -0,0 +1,77 @@
+package com.czh.example.protocol;
+
+import com.czh.example.model.RpcRequest;
+import com.czh.example.server.tcp.TcpBufferHandlerWrapper;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入测试：多个请求合并为一个 BATCH 消息，接收端拆开后逐个解码
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/27 11:00
+ */
+public class BatchWriteTest {
+
+    private static ProtocolMessage<RpcRequest> request(long requestId, String methodName) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        header.setRequestId(requestId);
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.czh.example.UserService")
+                .methodName(methodName)
+                .build();
+        return new ProtocolMessage<>(header, rpcRequest);
+    }
+
+    @Test
+    public void batchRoundTrip() {
+        List<Buffer> written = new ArrayList<>();
+        FrameWriter writer = buffer -> {
+            written.add(buffer);
+            return Future.succeededFuture();
+        };
+        List<Future<Void>> results = ProtocolMessageEncoder.writeBatch(writer,
+                List.of(request(1L, "getUser"), request(2L, "getOrder"), request(3L, "getCart")));
+
+        // 三个请求一次写入
+        Assert.assertEquals(1, written.size());
+        Assert.assertEquals(ProtocolMessageTypeEnum.BATCH.getKey(), written.get(0).getByte(3));
+        Assert.assertEquals(3, results.size());
+        Assert.assertTrue(results.stream().allMatch(Future::succeeded));
+
+        List<ProtocolMessage<?>> decoded = new ArrayList<>();
+        new TcpBufferHandlerWrapper(frame -> {
+            try {
+                decoded.add(ProtocolMessageDecoder.decode(frame));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).handle(written.get(0));
+        Assert.assertEquals(3, decoded.size());
+        Assert.assertEquals(2L, decoded.get(1).getHeader().getRequestId());
+        Assert.assertEquals("getCart", ((RpcRequest) decoded.get(2).getBody()).getMethodName());
+    }
+
+    @Test
+    public void singleMessageNotBatched() {
+        List<Buffer> written = new ArrayList<>();
+        ProtocolMessageEncoder.writeBatch(buffer -> {
+            // 写入完成后编码缓冲区归还到池中，需先复制
+            written.add(buffer.copy());
+            return Future.succeededFuture();
+        }, List.of(request(1L, "getUser")));
+        Assert.assertEquals(1, written.size());
+        Assert.assertEquals(ProtocolMessageTypeEnum.REQUEST.getKey(), written.get(0).getByte(3));
+    }
+}
@@ -0,0 +1,42 @@
+package com.czh.example.protocol;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 编码缓冲区池测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/21 11:00
+ */
+public class EncodeBufferPoolTest {
+
+    @Test
+    public void acquireAndRelease() {
+        long hit = EncodeBufferPool.getHitCount();
+        long miss = EncodeBufferPool.getMissCount();
+
+        // 按 2 的幂向上取整
+        ByteBuf byteBuf = EncodeBufferPool.acquire(3000);
+        Assert.assertEquals(4096, byteBuf.capacity());
+        byteBuf.writeInt(1);
+        EncodeBufferPool.release(byteBuf);
+
+        ByteBuf reused = EncodeBufferPool.acquire(2500);
+        Assert.assertSame(byteBuf, reused);
+        Assert.assertEquals(0, reused.writerIndex());
+        Assert.assertEquals(hit + 1, EncodeBufferPool.getHitCount());
+        Assert.assertEquals(miss + 1, EncodeBufferPool.getMissCount());
+        EncodeBufferPool.release(reused);
+    }
+
+    @Test
+    public void oversizedNotPooled() {
+        ByteBuf byteBuf = EncodeBufferPool.acquire(4 * 1024 * 1024);
+        long discard = EncodeBufferPool.getDiscardCount();
+        EncodeBufferPool.release(byteBuf);
+        Assert.assertEquals(discard + 1, EncodeBufferPool.getDiscardCount());
+    }
+}
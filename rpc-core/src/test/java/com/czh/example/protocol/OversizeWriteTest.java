@@ -0,0 +1,100 @@
+package com.czh.example.protocol;
+
+import com.czh.example.application.RpcApplication;
+import com.czh.example.model.RpcRequest;
+import com.czh.example.model.RpcResponse;
+import com.czh.example.model.StreamMessage;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 超过单帧上限的消息测试：不分片时不发送，只让该消息失败
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/28 15:00
+ */
+public class OversizeWriteTest {
+
+    private int maxFrameLength;
+
+    private final List<Buffer> written = new ArrayList<>();
+
+    private final FrameWriter writer = buffer -> {
+        // 写入完成后编码缓冲区归还到池中，需先复制
+        written.add(buffer.copy());
+        return Future.succeededFuture();
+    };
+
+    @Before
+    public void setUp() {
+        maxFrameLength = RpcApplication.getRpcConfig().getMaxFrameLength();
+        RpcApplication.getRpcConfig().setMaxFrameLength(1024);
+    }
+
+    @After
+    public void tearDown() {
+        RpcApplication.getRpcConfig().setMaxFrameLength(maxFrameLength);
+    }
+
+    private static ProtocolMessage.Header header(ProtocolMessageTypeEnum type) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JSON.getKey());
+        header.setType((byte) type.getKey());
+        header.setRequestId(1L);
+        return header;
+    }
+
+    @Test
+    public void oversizeResponse() throws IOException {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData("x".repeat(4096));
+        Future<Void> result = ProtocolMessageEncoder.write(writer,
+                new ProtocolMessage<>(header(ProtocolMessageTypeEnum.RESPONSE), rpcResponse));
+        Assert.assertTrue(result.failed());
+
+        // 只发送错误响应
+        Assert.assertEquals(1, written.size());
+        ProtocolMessage<?> decoded = ProtocolMessageDecoder.decode(written.get(0));
+        Assert.assertEquals(1L, decoded.getHeader().getRequestId());
+        RpcResponse errorResponse = (RpcResponse) decoded.getBody();
+        Assert.assertNull(errorResponse.getData());
+        Assert.assertTrue(errorResponse.getMessage().contains("超过上限"));
+    }
+
+    @Test
+    public void oversizeStreamData() throws IOException {
+        Future<Void> result = ProtocolMessageEncoder.write(writer,
+                new ProtocolMessage<>(header(ProtocolMessageTypeEnum.STREAM_DATA), StreamMessage.data("x".repeat(4096))));
+        Assert.assertTrue(result.failed());
+
+        // 元素改为带异常的流结束
+        Assert.assertEquals(1, written.size());
+        ProtocolMessage<?> decoded = ProtocolMessageDecoder.decode(written.get(0));
+        Assert.assertEquals(ProtocolMessageTypeEnum.STREAM_END.getKey(), decoded.getHeader().getType());
+        Assert.assertNotNull(((StreamMessage) decoded.getBody()).getMessage());
+    }
+
+    @Test
+    public void oversizeRequest() throws IOException {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.czh.example.UserService")
+                .methodName("getUser")
+                .args(new Object[]{"x".repeat(4096)})
+                .build();
+        Future<Void> result = ProtocolMessageEncoder.write(writer,
+                new ProtocolMessage<>(header(ProtocolMessageTypeEnum.REQUEST), rpcRequest));
+        Assert.assertTrue(result.failed());
+        Assert.assertTrue(written.isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package com.czh.example.protocol;
+
+import cn.hutool.core.util.IdUtil;
+import com.czh.example.model.StreamMessage;
+import com.czh.example.registry.LocalServiceMethod;
+import io.vertx.core.buffer.Buffer;
+import lombok.Data;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 服务端流消息编解码测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/23 15:00
+ */
+public class StreamMessageCodecTest {
+
+    @Data
+    public static class Item implements Serializable {
+        private String name;
+        private int count;
+    }
+
+    @Test
+    public void dataRoundTrip() throws IOException {
+        Item item = new Item();
+        item.setName("czh");
+        item.setCount(3);
+        ProtocolMessage<?> decoded = roundTrip(ProtocolMessageTypeEnum.STREAM_DATA, StreamMessage.data(item));
+        Assert.assertEquals(ProtocolMessageTypeEnum.STREAM_DATA.getKey(), decoded.getHeader().getType());
+        // JSON 反序列化后按元素类型转换
+        Assert.assertEquals(item, ((StreamMessage) decoded.getBody()).getData());
+    }
+
+    @Test
+    public void creditAndEnd() throws IOException {
+        ProtocolMessage<?> credit = roundTrip(ProtocolMessageTypeEnum.STREAM_CREDIT, StreamMessage.credit(128));
+        Assert.assertEquals(128, ((StreamMessage) credit.getBody()).getCredit());
+
+        ProtocolMessage<?> end = roundTrip(ProtocolMessageTypeEnum.STREAM_END, StreamMessage.end(null));
+        Assert.assertNull(((StreamMessage) end.getBody()).getException());
+    }
+
+    @Test
+    public void streamReturnType() {
+        Assert.assertTrue(LocalServiceMethod.isStream(Iterator.class));
+        Assert.assertTrue(LocalServiceMethod.isStream(Stream.class));
+        Assert.assertFalse(LocalServiceMethod.isStream(List.class));
+    }
+
+    private ProtocolMessage<?> roundTrip(ProtocolMessageTypeEnum type, StreamMessage streamMessage) throws IOException {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JSON.getKey());
+        header.setType((byte) type.getKey());
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        Buffer buffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, streamMessage));
+        ProtocolMessage<?> decoded = ProtocolMessageDecoder.decode(buffer);
+        Assert.assertEquals(header.getRequestId(), decoded.getHeader().getRequestId());
+        return decoded;
+    }
+}
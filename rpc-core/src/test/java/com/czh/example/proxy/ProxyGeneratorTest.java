@@ -0,0 +1,129 @@
+package com.czh.example.proxy;
+
+import com.czh.example.annotation.RpcMethod;
+import com.czh.example.application.RpcApplication;
+import com.czh.example.config.RpcConfig;
+import com.czh.example.model.RpcRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务代理生成器测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/19 11:00
+ */
+public class ProxyGeneratorTest {
+
+    public interface GreetService {
+
+        String greet(String name);
+
+        CompletableFuture<String> greetAsync(String name);
+    }
+
+    public interface AuditService {
+
+        @RpcMethod(timeout = 1000, oneWay = true)
+        void audit(String event);
+
+        @RpcMethod(oneWay = true)
+        String query(String event);
+
+        void record(String event);
+    }
+
+    @Test
+    public void byteBuddyProxy() {
+        ByteBuddyProxyGenerator proxyGenerator = new ByteBuddyProxyGenerator();
+        GreetService greetService = proxyGenerator.getProxy(GreetService.class);
+        Assert.assertFalse(Proxy.isProxyClass(greetService.getClass()));
+        // 同一接口只生成一次代理类
+        Assert.assertSame(greetService.getClass(), proxyGenerator.getProxy(GreetService.class).getClass());
+    }
+
+    @Test
+    public void byteBuddyProxyUsesCurrentConfig() throws Exception {
+        ByteBuddyProxyGenerator proxyGenerator = new ByteBuddyProxyGenerator();
+        Long requestTimeout = RpcApplication.getRpcConfig().getConsumerConfig().getRequestTimeout();
+        try {
+            GreetService first = proxyGenerator.getProxy(GreetService.class);
+            RpcApplication.getRpcConfig().getConsumerConfig().setRequestTimeout(requestTimeout + 1000);
+            GreetService second = proxyGenerator.getProxy(GreetService.class);
+            // 代理类只生成一次，方法描述按创建代理时的配置构建
+            Assert.assertSame(first.getClass(), second.getClass());
+            Assert.assertEquals(requestTimeout.longValue(), descriptors(first)[0].getTimeout());
+            Assert.assertEquals(requestTimeout + 1000, descriptors(second)[0].getTimeout());
+        } finally {
+            RpcApplication.getRpcConfig().getConsumerConfig().setRequestTimeout(requestTimeout);
+        }
+    }
+
+    private static MethodDescriptor[] descriptors(Object proxy) throws ReflectiveOperationException {
+        Field field = proxy.getClass().getDeclaredField("descriptors");
+        field.setAccessible(true);
+        return (MethodDescriptor[]) field.get(proxy);
+    }
+
+    @Test
+    public void methodDescriptor() throws Exception {
+        MethodDescriptor descriptor = new MethodDescriptor(GreetService.class.getMethod("greetAsync", String.class),
+                new RpcConfig());
+        Assert.assertTrue(descriptor.isAsync());
+        Assert.assertEquals(GreetService.class.getName() + "#greetAsync(java.lang.String)", descriptor.getMethodKey());
+        Assert.assertEquals("greetAsync", descriptor.newRequest(new Object[]{"czh"}).getMethodName());
+        Assert.assertEquals(GreetService.class.getName() + ":1.0", descriptor.getServiceKey());
+        Assert.assertEquals("greetAsync", descriptor.getLoadBalancerParams().get("methodName"));
+    }
+
+    @Test
+    public void oneWayDescriptor() throws Exception {
+        RpcConfig rpcConfig = new RpcConfig();
+        MethodDescriptor descriptor = new MethodDescriptor(AuditService.class.getMethod("audit", String.class), rpcConfig);
+        Assert.assertTrue(descriptor.isOneWay());
+        RpcRequest rpcRequest = descriptor.newRequest(new Object[]{"login"});
+        Assert.assertEquals(Long.valueOf(1000), rpcRequest.getTimeout());
+        // 截止时间在构造请求时确定，重试时按剩余时间发送
+        long remaining = TimeUnit.NANOSECONDS.toMillis(rpcRequest.getDeadline() - System.nanoTime());
+        Assert.assertTrue(remaining > 900 && remaining <= 1000);
+
+        MethodDescriptor record = new MethodDescriptor(AuditService.class.getMethod("record", String.class), rpcConfig);
+        Assert.assertFalse(record.isOneWay());
+        Assert.assertEquals(rpcConfig.getConsumerConfig().getRequestTimeout().longValue(), record.getTimeout());
+        rpcConfig.getConsumerConfig().getOneWayMethods().add(AuditService.class.getName() + "#record");
+        record = new MethodDescriptor(AuditService.class.getMethod("record", String.class), rpcConfig);
+        Assert.assertTrue(record.isOneWay());
+
+        try {
+            new MethodDescriptor(AuditService.class.getMethod("query", String.class), rpcConfig);
+            Assert.fail("返回值不为 void 的方法不能单向调用");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("query"));
+        }
+    }
+
+    @Test
+    public void rateLimitBackoff() throws Exception {
+        RpcConfig rpcConfig = new RpcConfig();
+        MethodDescriptor greet = new MethodDescriptor(GreetService.class.getMethod("greet", String.class), rpcConfig);
+        MethodDescriptor greetAsync = new MethodDescriptor(GreetService.class.getMethod("greetAsync", String.class), rpcConfig);
+        Assert.assertFalse(greet.hasRateLimitedNodes());
+        greet.backoff("127.0.0.1:8080", 1000);
+        Assert.assertTrue(greet.hasRateLimitedNodes());
+        Assert.assertTrue(greet.isRateLimited("127.0.0.1:8080"));
+        Assert.assertFalse(greet.isRateLimited("127.0.0.1:8081"));
+        // 只影响被限流的方法
+        Assert.assertFalse(greetAsync.hasRateLimitedNodes());
+        // 过期后删除
+        greet.backoff("127.0.0.1:8080", 1);
+        Thread.sleep(5);
+        Assert.assertFalse(greet.hasRateLimitedNodes());
+        Assert.assertFalse(greet.isRateLimited("127.0.0.1:8080"));
+    }
+}
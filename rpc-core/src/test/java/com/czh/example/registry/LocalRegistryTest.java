@@ -0,0 +1,73 @@
+package com.czh.example.registry;
+
+import com.czh.example.invoker.MethodHandleInvokerGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 本地注册中心测试：服务实例缓存和方法表
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/16 10:40
+ */
+public class LocalRegistryTest {
+
+    public static class EchoService {
+
+        public String echo(String message) {
+            return message;
+        }
+
+        public String echo(String message, Integer times) {
+            return message.repeat(times);
+        }
+    }
+
+    @Test
+    public void registerInstance() throws Exception {
+        EchoService echoService = new EchoService();
+        LocalRegistry.registerInstance("echoService", echoService);
+        LocalService localService = LocalRegistry.getService("echoService");
+        Assert.assertSame(echoService, localService.getInstance());
+        Assert.assertEquals(EchoService.class, LocalRegistry.get("echoService"));
+    }
+
+    @Test
+    public void getMethod() throws Throwable {
+        LocalService localService = LocalService.of("echoService", EchoService.class, ServiceScopeConstant.SINGLETON,
+                new MethodHandleInvokerGenerator());
+        Assert.assertSame(localService.getInstance(), localService.getInstance());
+
+        LocalServiceMethod serviceMethod = localService.getMethod("echo", new Class[]{String.class, Integer.class});
+        Assert.assertNotNull(serviceMethod);
+        Assert.assertEquals("aaa", serviceMethod.getInvoker().invoke(localService.getInstance(), new Object[]{"a", 3}));
+        Assert.assertEquals("echo(java.lang.String,java.lang.Integer)", serviceMethod.getSignature());
+        Assert.assertNull(localService.getMethod("echo", new Class[]{Integer.class}));
+        Assert.assertNull(localService.getMethod("hashCode", new Class[0]));
+    }
+
+    @Test
+    public void prototypeScope() throws Exception {
+        LocalService localService = LocalService.of("echoService", EchoService.class, ServiceScopeConstant.PROTOTYPE,
+                new MethodHandleInvokerGenerator());
+        Assert.assertNotSame(localService.getInstance(), localService.getInstance());
+    }
+
+    @Test
+    public void methodId() throws Exception {
+        LocalRegistry.registerInstance("echoService", new EchoService());
+        LocalService localService = LocalRegistry.getService("echoService");
+        LocalServiceMethod serviceMethod = localService.getMethod("echo", new Class[]{String.class});
+
+        Integer methodId = LocalRegistry.getMethodIds().get(
+                LocalRegistry.getMethodKey("echoService", "echo(java.lang.String)"));
+        Assert.assertEquals(Integer.valueOf(serviceMethod.getMethodId()), methodId);
+        Assert.assertSame(localService, LocalRegistry.getServiceByMethodId(methodId));
+        Assert.assertSame(serviceMethod, localService.getMethod(methodId));
+
+        // 重新注册后旧的方法ID失效
+        LocalRegistry.registerInstance("echoService", new EchoService());
+        Assert.assertNull(LocalRegistry.getServiceByMethodId(methodId));
+    }
+}
@@ -2,10 +2,13 @@ package com.czh.example.serializer.impl;
 
 
 import cn.hutool.core.util.ObjectUtil;
+import com.czh.example.model.RpcRequest;
 import com.czh.example.pojo.Student;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -86,4 +89,46 @@ public class SerializerTest {
     [1, 36, -125, -27, -68, -96, -28, -72, -119]
     Student(name=张三, age=18)
      */
-}
\ No newline at end of file
+
+    /**
+     * 旧版本的请求：没有 methodId 和 timeout
+     */
+    @Data
+    @NoArgsConstructor
+    public static class BaselineRequest implements Serializable {
+
+        private String serviceName;
+
+        private String methodName;
+
+        private String serviceVersion;
+
+        private Class<?>[] parameterTypes;
+
+        private Object[] args;
+    }
+
+    @Test
+    public void jsonRequestBaselineCompatible() throws IOException {
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName("com.czh.example.service.UserService");
+        rpcRequest.setMethodName("getUser");
+        rpcRequest.setParameterTypes(new Class[]{String.class});
+        rpcRequest.setArgs(new Object[]{"czh"});
+        byte[] bytes = new JsonSerializer().serialize(rpcRequest);
+
+        // 旧版本使用默认的 ObjectMapper，遇到不认识的字段解析失败
+        BaselineRequest baselineRequest = new ObjectMapper().readValue(bytes, BaselineRequest.class);
+        Assert.assertEquals("getUser", baselineRequest.getMethodName());
+        Assert.assertArrayEquals(new Class[]{String.class}, baselineRequest.getParameterTypes());
+
+        // 握手确认后才携带的字段，旧版本无法解析
+        rpcRequest.setTimeout(1000L);
+        try {
+            new ObjectMapper().readValue(new JsonSerializer().serialize(rpcRequest), BaselineRequest.class);
+            Assert.fail("旧版本不认识 timeout 字段");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("timeout"));
+        }
+    }
+}
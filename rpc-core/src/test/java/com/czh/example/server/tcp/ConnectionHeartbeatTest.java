@@ -0,0 +1,159 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.protocol.*;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 心跳消息和心跳检查测试（检查使用可控的时钟，直接调用 check）
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/25 14:00
+ */
+public class ConnectionHeartbeatTest {
+
+    @Test
+    public void heartbeatHasNoBody() throws IOException {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.HEART_BEAT.getKey());
+        header.setStatus(ConnectionHeartbeat.PING);
+        header.setRequestId(7L);
+
+        Buffer buffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, null));
+        // 只有消息头
+        Assert.assertEquals(ProtocolConstant.MESSAGE_HEADER_LENGTH, buffer.length());
+
+        ProtocolMessage<?> decoded = ProtocolMessageDecoder.decode(buffer);
+        Assert.assertNull(decoded.getBody());
+        Assert.assertEquals(ConnectionHeartbeat.PING, decoded.getHeader().getStatus());
+        Assert.assertEquals(7L, decoded.getHeader().getRequestId());
+    }
+
+    private final AtomicLong clock = new AtomicLong(10_000);
+
+    private final List<Buffer> written = new ArrayList<>();
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private final AtomicInteger dead = new AtomicInteger();
+
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    private ConnectionHeartbeat heartbeat(long interval, int missLimit, long idleTimeout) {
+        FrameWriter writer = buffer -> {
+            written.add(buffer.copy());
+            return Future.succeededFuture();
+        };
+        return new ConnectionHeartbeat(writer, closed::incrementAndGet, "127.0.0.1:8080", interval, missLimit,
+                idleTimeout, busy::get, dead::incrementAndGet, clock::get);
+    }
+
+    @Test
+    public void pingThroughWriter() throws IOException {
+        ConnectionHeartbeat heartbeat = heartbeat(1000, 3, 0);
+        heartbeat.enableHeartbeat();
+        // 一个周期内收到过消息，不发送心跳
+        clock.addAndGet(500);
+        heartbeat.check();
+        Assert.assertTrue(written.isEmpty());
+
+        clock.addAndGet(500);
+        heartbeat.check();
+        Assert.assertEquals(1, written.size());
+        ProtocolMessage<?> ping = ProtocolMessageDecoder.decode(written.get(0));
+        Assert.assertEquals(ProtocolMessageTypeEnum.HEART_BEAT.getKey(), ping.getHeader().getType());
+        Assert.assertEquals(ConnectionHeartbeat.PING, ping.getHeader().getStatus());
+        Assert.assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void closeAfterMissLimit() {
+        ConnectionHeartbeat heartbeat = heartbeat(1000, 3, 0);
+        heartbeat.enableHeartbeat();
+        for (int i = 0; i < 2; i++) {
+            clock.addAndGet(1000);
+            heartbeat.check();
+        }
+        Assert.assertEquals(0, closed.get());
+        Assert.assertEquals(0, dead.get());
+
+        // 连续 3 个周期没有收到消息，通知失效并关闭连接
+        clock.addAndGet(1000);
+        heartbeat.check();
+        Assert.assertEquals(1, dead.get());
+        Assert.assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void readResetsMissCount() {
+        ConnectionHeartbeat heartbeat = heartbeat(1000, 3, 0);
+        heartbeat.enableHeartbeat();
+        clock.addAndGet(2000);
+        heartbeat.check();
+        // 收到心跳回复
+        heartbeat.onRead(true);
+        clock.addAndGet(2000);
+        heartbeat.check();
+        Assert.assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void noCloseWithoutHeartbeat() {
+        // 对端未在握手中确认支持心跳（旧版本），不发送心跳也不因未收到消息关闭
+        ConnectionHeartbeat heartbeat = heartbeat(1000, 3, 0);
+        clock.addAndGet(10_000);
+        heartbeat.check();
+        Assert.assertTrue(written.isEmpty());
+        Assert.assertEquals(0, closed.get());
+        Assert.assertEquals(0, dead.get());
+    }
+
+    @Test
+    public void reapIdleOnlyWhenNotBusy() {
+        ConnectionHeartbeat heartbeat = heartbeat(0, 3, 5000);
+        busy.set(true);
+        clock.addAndGet(5000);
+        heartbeat.check();
+        Assert.assertEquals(0, closed.get());
+
+        // 心跳不刷新空闲时间，业务消息刷新
+        heartbeat.onRead(true);
+        busy.set(false);
+        heartbeat.check();
+        Assert.assertEquals(1, closed.get());
+        // 空闲关闭不是对端失效
+        Assert.assertEquals(0, dead.get());
+    }
+
+    @Test
+    public void activeConnectionNotReaped() {
+        ConnectionHeartbeat heartbeat = heartbeat(0, 3, 5000);
+        clock.addAndGet(4000);
+        heartbeat.onActive();
+        clock.addAndGet(4000);
+        heartbeat.check();
+        Assert.assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void deadPeerMarkedUnavailable() {
+        // 心跳检测到失效时连接池标记地址不可用（TcpConnection 的失效回调）
+        TcpConnectionPool pool = new TcpConnectionPool(null, "127.0.0.1", 8080, 1);
+        Assert.assertTrue(pool.isAvailable());
+        pool.markUnavailable();
+        Assert.assertFalse(pool.isAvailable());
+    }
+}
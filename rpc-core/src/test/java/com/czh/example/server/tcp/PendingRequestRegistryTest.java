@@ -0,0 +1,43 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.model.RpcResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 在途请求登记表测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/12 15:40
+ */
+public class PendingRequestRegistryTest {
+
+    @Test
+    public void complete() throws Exception {
+        CompletableFuture<RpcResponse> future = PendingRequestRegistry.register(1L, 1000);
+        RpcResponse rpcResponse = new RpcResponse();
+        Assert.assertTrue(PendingRequestRegistry.complete(1L, rpcResponse));
+        Assert.assertSame(rpcResponse, future.get());
+        //重复响应被忽略
+        Assert.assertFalse(PendingRequestRegistry.complete(1L, rpcResponse));
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        long timeoutCount = PendingRequestRegistry.getTimeoutCount();
+        CompletableFuture<RpcResponse> future = PendingRequestRegistry.register(2L, 50);
+        try {
+            future.get();
+            Assert.fail("请求应当超时");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertEquals(timeoutCount + 1, PendingRequestRegistry.getTimeoutCount());
+        Assert.assertFalse(PendingRequestRegistry.complete(2L, new RpcResponse()));
+    }
+}
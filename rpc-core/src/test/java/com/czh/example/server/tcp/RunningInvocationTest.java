@@ -0,0 +1,57 @@
+package com.czh.example.server.tcp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 正在处理的请求（取消）测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 15:00
+ */
+public class RunningInvocationTest {
+
+    @Test
+    public void cancelQueued() {
+        RunningInvocation invocation = new RunningInvocation();
+        invocation.cancel(true);
+        Assert.assertTrue(invocation.isCancelled());
+        Assert.assertFalse(invocation.start());
+    }
+
+    @Test
+    public void cancelRunning() {
+        RunningInvocation invocation = new RunningInvocation();
+        Assert.assertTrue(invocation.start());
+        invocation.cancel(true);
+        Assert.assertTrue(Thread.currentThread().isInterrupted());
+        invocation.finish();
+        // 结束时清除中断标记，不影响线程上的下一个任务
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void cancelWithoutInterrupt() {
+        RunningInvocation invocation = new RunningInvocation();
+        Assert.assertTrue(invocation.start());
+        invocation.cancel(false);
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+        invocation.finish();
+    }
+
+    @Test
+    public void cancelFuture() {
+        RunningInvocation invocation = new RunningInvocation();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        invocation.setFuture(future);
+        invocation.cancel(false);
+        Assert.assertTrue(future.isCancelled());
+
+        CompletableFuture<String> late = new CompletableFuture<>();
+        invocation.setFuture(late);
+        Assert.assertTrue(late.isCancelled());
+    }
+}
@@ -0,0 +1,91 @@
+package com.czh.example.server.tcp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 流通道测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/24 15:00
+ */
+public class StreamChannelTest {
+
+    /**
+     * 记录写入的发送流
+     */
+    private static class RecordingSink implements StreamSink<String> {
+
+        private final List<String> written = new ArrayList<>();
+
+        private boolean completed;
+
+        @Override
+        public void write(String data) {
+            written.add(data);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void error(Throwable e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void localPipe() throws InterruptedException {
+        StreamChannel<String> channel = new StreamChannel<>(2);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                channel.write("r" + i);
+            }
+            channel.complete();
+        });
+        writer.start();
+        List<String> read = new ArrayList<>();
+        while (channel.hasNext()) {
+            read.add(channel.next());
+        }
+        writer.join();
+        Assert.assertEquals(10, read.size());
+        Assert.assertEquals("r9", read.get(9));
+    }
+
+    @Test
+    public void bindFlushesBufferedElementsInOrder() {
+        StreamChannel<String> channel = new StreamChannel<>();
+        channel.write("a");
+        channel.write(null);
+        RecordingSink sink = new RecordingSink();
+        channel.bind(sink);
+        channel.write("b");
+        channel.complete();
+        Assert.assertEquals(Arrays.asList("a", null, "b"), sink.written);
+        Assert.assertTrue(sink.completed);
+        try {
+            channel.write("c");
+            Assert.fail("结束后写入应失败");
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    @Test
+    public void completeBeforeBind() {
+        StreamChannel<String> channel = new StreamChannel<>();
+        channel.write("a");
+        channel.complete();
+        RecordingSink sink = new RecordingSink();
+        channel.bind(sink);
+        Assert.assertEquals(List.of("a"), sink.written);
+        Assert.assertTrue(sink.completed);
+    }
+}
@@ -0,0 +1,180 @@
+package com.czh.example.server.tcp;
+
+import com.czh.example.protocol.ProtocolConstant;
+import com.czh.example.protocol.ProtocolMessageTypeEnum;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 消息切分测试：半包、粘包、分片重组、批量消息、长度上限
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/20 10:30
+ */
+public class TcpBufferHandlerWrapperTest {
+
+    private static Buffer frame(String body) {
+        byte[] bodyBytes = body.getBytes();
+        Buffer buffer = Buffer.buffer();
+        buffer.appendBytes(new byte[13]);
+        buffer.appendInt(bodyBytes.length);
+        buffer.appendBytes(bodyBytes);
+        return buffer;
+    }
+
+    /**
+     * 分片：内容为完整消息的一段
+     */
+    private static Buffer fragment(long requestId, boolean last, Buffer content) {
+        Buffer buffer = Buffer.buffer();
+        buffer.appendBytes(new byte[3]);
+        buffer.appendByte((byte) ProtocolMessageTypeEnum.FRAGMENT.getKey());
+        buffer.appendByte((byte) (last ? 1 : 0));
+        buffer.appendLong(requestId);
+        buffer.appendInt(content.length());
+        buffer.appendBuffer(content);
+        return buffer;
+    }
+
+    /**
+     * 批量消息：内容为多个完整消息
+     */
+    private static Buffer batch(Buffer... frames) {
+        Buffer content = Buffer.buffer();
+        for (Buffer frame : frames) {
+            content.appendBuffer(frame);
+        }
+        Buffer buffer = Buffer.buffer();
+        buffer.appendBytes(new byte[3]);
+        buffer.appendByte((byte) ProtocolMessageTypeEnum.BATCH.getKey());
+        buffer.appendBytes(new byte[9]);
+        buffer.appendInt(content.length());
+        buffer.appendBuffer(content);
+        return buffer;
+    }
+
+    private static String body(Buffer frame) {
+        return frame.getString(ProtocolConstant.MESSAGE_HEADER_LENGTH, frame.length());
+    }
+
+    @Test
+    public void stickyAndHalfPacket() {
+        List<String> bodies = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> bodies.add(body(frame)));
+
+        // 两个完整消息 + 第三个消息的一部分
+        Buffer data = Buffer.buffer().appendBuffer(frame("first")).appendBuffer(frame("second")).appendBuffer(frame("third"));
+        int split = data.length() - 3;
+        wrapper.handle(data.getBuffer(0, split));
+        Assert.assertEquals(List.of("first", "second"), bodies);
+
+        // 剩余部分逐字节到达
+        for (int i = split; i < data.length(); i++) {
+            wrapper.handle(data.getBuffer(i, i + 1));
+        }
+        Assert.assertEquals(List.of("first", "second", "third"), bodies);
+    }
+
+    @Test
+    public void fragmentsInterleavedWithOtherMessages() {
+        List<String> bodies = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> bodies.add(body(frame)));
+
+        Buffer large = frame("large-message-body");
+        Buffer data = Buffer.buffer()
+                .appendBuffer(fragment(1L, false, large.getBuffer(0, 10)))
+                .appendBuffer(frame("small"))
+                .appendBuffer(fragment(1L, false, large.getBuffer(10, 25)))
+                .appendBuffer(fragment(1L, true, large.getBuffer(25, large.length())));
+        // 分片跨数据块到达
+        wrapper.handle(data.getBuffer(0, 20));
+        wrapper.handle(data.getBuffer(20, data.length()));
+        Assert.assertEquals(List.of("small", "large-message-body"), bodies);
+    }
+
+    @Test
+    public void rejectOversizedFrameFromHeader() {
+        List<String> bodies = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> bodies.add(body(frame)), 8, 64, errors::add);
+
+        // 只收到消息头即拒绝，不等待消息体
+        Buffer oversized = frame("too-large-body");
+        wrapper.handle(oversized.getBuffer(0, ProtocolConstant.MESSAGE_HEADER_LENGTH));
+        Assert.assertEquals(1, errors.size());
+        wrapper.handle(frame("ok"));
+        Assert.assertTrue(bodies.isEmpty());
+    }
+
+    @Test
+    public void rejectOversizedFragments() {
+        List<String> bodies = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> bodies.add(body(frame)), 64, 16, errors::add);
+
+        // 每个分片都不超过单帧上限，重组后超过消息上限
+        Buffer large = frame("large-message-body");
+        Buffer data = Buffer.buffer()
+                .appendBuffer(fragment(1L, false, large.getBuffer(0, 20)))
+                .appendBuffer(fragment(1L, true, large.getBuffer(20, large.length())));
+        wrapper.handle(data);
+        Assert.assertEquals(1, errors.size());
+        wrapper.handle(frame("ok"));
+        Assert.assertTrue(bodies.isEmpty());
+    }
+
+    @Test
+    public void rejectTooManyPendingFragments() {
+        List<Throwable> errors = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> {
+        }, 1024, Integer.MAX_VALUE, errors::add);
+        // 只发送分片，不发送最后一个分片
+        Buffer data = Buffer.buffer();
+        for (long requestId = 1; requestId <= 1000; requestId++) {
+            data.appendBuffer(fragment(requestId, false, Buffer.buffer("x")));
+        }
+        wrapper.handle(data);
+        Assert.assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void batchUnpacked() {
+        List<String> bodies = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> bodies.add(body(frame)));
+
+        Buffer data = Buffer.buffer()
+                .appendBuffer(batch(frame("a"), frame("bb"), frame("")))
+                .appendBuffer(frame("after"));
+        wrapper.handle(data.getBuffer(0, 7));
+        wrapper.handle(data.getBuffer(7, data.length()));
+        Assert.assertEquals(List.of("a", "bb", "", "after"), bodies);
+    }
+
+    @Test
+    public void malformedBatch() {
+        List<Throwable> errors = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> {
+        }, 1024, 1024, errors::add);
+        // 批量消息内的消息长度超出批量消息体
+        Buffer inner = frame("abc");
+        Buffer data = batch(inner.getBuffer(0, inner.length() - 1));
+        wrapper.handle(data);
+        Assert.assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void nestedBatchRejected() {
+        List<String> bodies = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frame -> bodies.add(body(frame)), 1024, 1024, errors::add);
+        // 批量消息中嵌套分片，不交给处理器解码
+        wrapper.handle(batch(fragment(1L, true, frame("abc"))));
+        Assert.assertEquals(1, errors.size());
+        Assert.assertTrue(bodies.isEmpty());
+    }
+}
@@ -0,0 +1,32 @@
+package com.czh.example.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 直方图测试
+ *
+ * @author czh
+ * @version 1.0.0
+ * 2024/5/26 17:30
+ */
+public class HistogramTest {
+
+    @Test
+    public void percentile() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(50.5, histogram.getMean(), 0.001);
+        // 50 在 [32, 64) 桶，100 在 [64, 128) 桶
+        Assert.assertEquals(63, histogram.getPercentile(0.5));
+        Assert.assertEquals(127, histogram.getPercentile(1));
+        Assert.assertEquals(1, histogram.getBucketCounts()[1]);
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+    }
+}
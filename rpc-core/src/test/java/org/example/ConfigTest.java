@@ -37,7 +37,7 @@ public class ConfigTest {
         System.out.println(rpcConfig);
 
         // 传入自定义配置文件
-        RpcApplication.init(new RpcConfig("自定义配置文件","1.0","localhost",8888,false,"json",null,null,null,null));
+        RpcApplication.init(new RpcConfig("自定义配置文件","1.0","localhost",8888,false,"json",null,null,null,null,null,null,false,"jdk",64,"none",2048,262144,16777216,1073741824,5000,3,60000,4194304,1048576));
     }
 
     /**
@@ -29,4 +29,14 @@ public @interface RpcService {
      * 版本
      */
     String serviceVersion() default RpcConstant.DEFAULT_SERVICE_VERSION;
+
+    /**
+     * 服务的限流（每秒请求数），0 表示不限流
+     */
+    int rateLimit() default 0;
+
+    /**
+     * 方法的限流，格式为 方法名:每秒请求数（同名重载方法共用）
+     */
+    String[] methodRateLimits() default {};
 }
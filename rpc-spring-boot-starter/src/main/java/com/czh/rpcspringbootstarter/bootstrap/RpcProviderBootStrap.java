@@ -4,6 +4,7 @@ import com.czh.example.application.RpcApplication;
 import com.czh.example.config.RegistryConfig;
 import com.czh.example.config.RpcConfig;
 import com.czh.example.factory.RegistryFactory;
+import com.czh.example.limiter.RateLimiterRegistry;
 import com.czh.example.model.ServiceMetaInfo;
 import com.czh.example.registry.LocalRegistry;
 import com.czh.example.registry.Registry;
@@ -12,6 +13,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 
+import java.util.Map;
+
 /**
  * Rpc 服务提供者启动类
  *
@@ -40,12 +43,15 @@ public class RpcProviderBootStrap implements BeanPostProcessor {
             String serviceName = interfaceClass.getName();
             String serviceVersion = rpcService.serviceVersion();
             //2. 注册服务
-            //本地注册
-            LocalRegistry.register(serviceName, aClass);
+            //本地注册，直接使用 Spring 创建的 Bean 作为服务实例
+            LocalRegistry.registerInstance(serviceName, bean);
 
             //全局配置
             final RpcConfig rpcConfig = RpcApplication.getRpcConfig();
 
+            //登记注解上的限流，配置中已有的以配置为准
+            registerRateLimits(serviceName, rpcService, rpcConfig.getProviderConfig().getRateLimits());
+
             //注册服务到注册中心
             RegistryConfig registryConfig = rpcConfig.getRegistryConfig();
             Registry registry = RegistryFactory.getInstance(registryConfig.getRegistry());
@@ -62,4 +68,29 @@ public class RpcProviderBootStrap implements BeanPostProcessor {
         }
         return BeanPostProcessor.super.postProcessAfterInitialization(bean,beanName);
     }
+
+    /**
+     * 登记 @RpcService 上的服务和方法限流
+     */
+    private void registerRateLimits(String serviceName, RpcService rpcService, Map<String, Integer> configRateLimits) {
+        if (rpcService.rateLimit() > 0 && !configRateLimits.containsKey(serviceName)) {
+            RateLimiterRegistry.setServiceLimit(serviceName, rpcService.rateLimit());
+        }
+        for (String methodRateLimit : rpcService.methodRateLimits()) {
+            int index = methodRateLimit.lastIndexOf(':');
+            if (index <= 0) {
+                throw new RuntimeException(serviceName + "方法限流格式错误：" + methodRateLimit);
+            }
+            String methodName = methodRateLimit.substring(0, index).trim();
+            int permitsPerSecond;
+            try {
+                permitsPerSecond = Integer.parseInt(methodRateLimit.substring(index + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException(serviceName + "方法限流格式错误：" + methodRateLimit, e);
+            }
+            if (!configRateLimits.containsKey(serviceName + "#" + methodName)) {
+                RateLimiterRegistry.setMethodLimit(serviceName, methodName, permitsPerSecond);
+            }
+        }
+    }
 }